@@ -0,0 +1,81 @@
+package com.javatechie.webflux.benchmark;
+
+import com.javatechie.webflux.config.BlockingSchedulerProperties;
+import com.javatechie.webflux.config.BlockingSchedulers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calls одновременных блокирующих вызовов по sleepMs (как CustomerDao.getCustomers) на виртуальных потоках
+ * и на boundedElastic с maxThreads потоков. Время одной операции - пока не завершатся все вызовы:
+ * в идеале около sleepMs, у ограниченного пула - sleepMs * calls / maxThreads.
+ * <p>
+ * Виртуальным потокам нужен JDK 21+, на старых JVM набор VIRTUAL падает при старте.
+ * Память потоков ОС не видна в -prof gc, её удобнее смотреть по RSS процесса (-prof perfnorm или top).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BlockingSchedulerBenchmark {
+
+    @Param({"VIRTUAL", "BOUNDED_ELASTIC"})
+    private BlockingSchedulerProperties.Type type;
+
+    @Param({"1000", "10000"})
+    private int calls;
+
+    @Param({"256"})
+    private int maxThreads;
+
+    @Param({"10"})
+    private int sleepMs;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp() {
+        if (type == BlockingSchedulerProperties.Type.VIRTUAL) {
+            scheduler = BlockingSchedulers.virtualThreads("blocking");
+        } else {
+            BlockingSchedulerProperties properties = new BlockingSchedulerProperties();
+            properties.setType(type);
+            properties.setMaxThreads(maxThreads);
+            properties.setQueueCapacity(calls);
+            scheduler = BlockingSchedulers.create(properties, "blocking");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public Long blockingCalls() {
+        return Flux.range(0, calls)
+                .flatMap(i -> Mono.fromCallable(() -> {
+                    Thread.sleep(sleepMs);
+                    return i;
+                }).subscribeOn(scheduler), calls)
+                .count()
+                .block();
+    }
+}
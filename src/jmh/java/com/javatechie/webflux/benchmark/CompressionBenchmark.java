@@ -0,0 +1,105 @@
+package com.javatechie.webflux.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.webflux.dto.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Цена gzip для ответов с клиентами: время сжатия против сэкономленных байтов.
+ * <ul>
+ *     <li>list - JSON-массив из listSize клиентов одним куском, как ограниченный список или страница;</li>
+ *     <li>events - те же клиенты по одному с SYNC_FLUSH после каждого, как SSE/NDJSON-поток:
+ *     каждое событие сразу уходит клиенту, но сжимается хуже.</li>
+ * </ul>
+ * Level 6 - уровень Netty по умолчанию. Размеры до и после сжатия печатаются при старте каждого набора параметров.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompressionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    @Param({"1", "6"})
+    private int level;
+
+    private byte[] list;
+    private byte[][] events;
+    private Deflater deflater;
+    private final byte[] out = new byte[1 << 20];
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Customer> customers = new ArrayList<>(listSize);
+        events = new byte[listSize][];
+        for (int i = 1; i <= listSize; i++) {
+            Customer customer = new Customer(i, "customer" + i);
+            customers.add(customer);
+            events[i - 1] = mapper.writeValueAsBytes(customer);
+        }
+        list = mapper.writeValueAsBytes(customers);
+        //gzip: deflate без zlib-обёртки, как у Netty
+        deflater = new Deflater(level, true);
+        int eventBytes = 0;
+        for (byte[] event : events) {
+            eventBytes += event.length;
+        }
+        System.out.printf("%nlevel %d, %d customers: list %d -> %d bytes, events %d -> %d bytes%n",
+                level, listSize, list.length, compressList(), eventBytes, compressEvents());
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public int compressList() {
+        deflater.reset();
+        deflater.setInput(list);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            size += deflater.deflate(out, 0, out.length);
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int compressEvents() {
+        deflater.reset();
+        int size = 0;
+        for (byte[] event : events) {
+            deflater.setInput(event);
+            size += deflater.deflate(out, 0, out.length, Deflater.SYNC_FLUSH);
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            size += deflater.deflate(out, 0, out.length);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,92 @@
+package com.javatechie.webflux.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.webflux.dto.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматов для Customer: время кодирования и декодирования одного клиента и списка.
+ * Размер в байтах на клиента печатается при старте каждого набора параметров.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1000"})
+    private int listSize;
+
+    private ObjectMapper mapper;
+    private JavaType listType;
+    private Customer customer;
+    private List<Customer> customers;
+    private byte[] encodedCustomer;
+    private byte[] encodedList;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            case "smile":
+                mapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            default:
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        listType = mapper.getTypeFactory().constructCollectionType(List.class, Customer.class);
+        customer = new Customer(42, "customer42");
+        customers = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            customers.add(new Customer(i, "customer" + i));
+        }
+        encodedCustomer = mapper.writeValueAsBytes(customer);
+        encodedList = mapper.writeValueAsBytes(customers);
+        System.out.printf("%n%s: %d bytes per customer, %.1f bytes per customer in a list of %d%n",
+                format, encodedCustomer.length, (double) encodedList.length / listSize, listSize);
+    }
+
+    @Benchmark
+    public byte[] encodeCustomer() throws IOException {
+        return mapper.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public Customer decodeCustomer() throws IOException {
+        return mapper.readValue(encodedCustomer, Customer.class);
+    }
+
+    @Benchmark
+    public byte[] encodeList() throws IOException {
+        return mapper.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public List<Customer> decodeList() throws IOException {
+        return mapper.readValue(encodedList, listType);
+    }
+}
@@ -0,0 +1,106 @@
+package com.javatechie.webflux.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.webflux.dto.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование size клиентов в JSON: напрямую через ObjectMapper и через Jackson2JsonEncoder,
+ * которым WebFlux пишет тело ответа - списком за один вызов (encodeValue, как ответ с известной длиной)
+ * и потоком (JSON-массив и NDJSON). Все варианты кодируют одних и тех же клиентов, поэтому сравнимы
+ * при любом size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerJsonBenchmark {
+
+    private static final ResolvableType CUSTOMER_TYPE = ResolvableType.forClass(Customer.class);
+    private static final ResolvableType CUSTOMER_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class, Customer.class);
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private Jackson2JsonEncoder encoder;
+    private DefaultDataBufferFactory bufferFactory;
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        encoder = new Jackson2JsonEncoder(mapper);
+        bufferFactory = new DefaultDataBufferFactory();
+        customers = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            customers.add(new Customer(i, "customer" + i));
+        }
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public int encodeValue() {
+        DataBuffer buffer = encoder.encodeValue(customers, bufferFactory, CUSTOMER_LIST_TYPE,
+                MediaType.APPLICATION_JSON, Collections.emptyMap());
+        int bytes = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    @Benchmark
+    public int encodeList() {
+        return encoder.encode(Flux.fromIterable(customers), bufferFactory, CUSTOMER_TYPE,
+                        MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0, Integer::sum)
+                .block();
+    }
+
+    @Benchmark
+    public int encodeNdjsonStream() {
+        return encoder.encode(Flux.fromIterable(customers), bufferFactory, CUSTOMER_TYPE,
+                        MediaType.APPLICATION_NDJSON, Collections.emptyMap())
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0, Integer::sum)
+                .block();
+    }
+}
@@ -0,0 +1,66 @@
+package com.javatechie.webflux.benchmark;
+
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по id и полный обход хранилища клиентов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private CustomerStore store;
+
+    @Setup
+    public void setUp() {
+        store = new CustomerStore();
+        for (int i = 1; i <= size; i++) {
+            store.put(new Customer(i, "customer" + i));
+        }
+    }
+
+    @Benchmark
+    public Customer lookup() {
+        return store.get(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    public Customer lookupMissing() {
+        return store.get(-ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        for (Customer customer : store.scan()) {
+            blackhole.consume(customer);
+        }
+    }
+
+    @Benchmark
+    public Long findAll() {
+        return store.findAll().count().block();
+    }
+}
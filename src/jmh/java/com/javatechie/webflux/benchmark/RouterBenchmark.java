@@ -0,0 +1,93 @@
+package com.javatechie.webflux.benchmark;
+
+import com.javatechie.webflux.SpringbootWebfluxDemoApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerHandler.findCustomer и loadCustomers, вызванные через роутер из RouterConfig:
+ * маршрутизация, обработчик и кодирование ответа в JSON, без сетевого стека.
+ * Контекст поднимается реактивным (обработчикам нужны кодеки WebFlux), но запросы идут мимо сервера,
+ * лимиты запросов выключены.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouterBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private HttpHandler httpHandler;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringbootWebfluxDemoApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run("--customer.store.seed-size=" + size,
+                        "--server.port=0",
+                        "--customer.log.enabled=false",
+                        "--customer.rate-limit.enabled=false",
+                        "--logging.level.root=warn");
+        httpHandler = RouterFunctions.toHttpHandler(context.getBean("routerFunction", RouterFunction.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findCustomer() {
+        int id = ThreadLocalRandom.current().nextInt(1, size + 1);
+        return exchange(MockServerHttpRequest.get("/router/customer/" + id).build());
+    }
+
+    @Benchmark
+    public int loadCustomers() {
+        return exchange(MockServerHttpRequest.get("/router/customers").build());
+    }
+
+    private int exchange(MockServerHttpRequest request) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        return response.getBody()
+                .map(RouterBenchmark::release)
+                .reduce(0, Integer::sum)
+                .block();
+    }
+
+    private static int release(DataBuffer buffer) {
+        int bytes = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+package com.javatechie.webflux.benchmark;
+
+import com.javatechie.webflux.dao.CustomerNameIndex;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.service.CustomerChangeFeed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилище с разным числом шардов под параллельной нагрузкой. shards=1 - прежнее хранилище
+ * с одной таблицей и одной блокировкой писателя.
+ * <p>
+ * Масштабирование по ядрам смотрится прогоном с разным числом потоков:
+ * -Djmh.args="ShardedStoreBenchmark -t 1" и -t 2, 4, 8 ...; по умолчанию потоков столько же, сколько ядер.
+ * Группа mixed - три читателя на одного писателя, put идёт по случайным существующим id.
+ * <p>
+ * listeners=app - со слушателями, которые в приложении есть всегда: индекс имён и лента изменений
+ * (без подписчиков). Они вызываются под блокировкой шарда, так что их стоимость входит в save,
+ * а общая точка у шардов одна - короткая блокировка ленты, выдающей номера.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardedStoreBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    /**
+     * 0 - по числу ядер.
+     */
+    @Param({"1", "0"})
+    private int shards;
+
+    @Param({"none", "app"})
+    private String listeners;
+
+    private CustomerStore store;
+    private Customer[] customers;
+
+    @Setup
+    public void setUp() {
+        store = new CustomerStore(shards);
+        customers = new Customer[size + 1];
+        for (int i = 1; i <= size; i++) {
+            customers[i] = new Customer(i, "customer" + i);
+            store.put(customers[i]);
+        }
+        if ("app".equals(listeners)) {
+            CustomerNameIndex names = new CustomerNameIndex();
+            ReflectionTestUtils.setField(names, "store", store);
+            names.init();
+            store.addListener(new CustomerChangeFeed(1024, route -> null));
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Customer lookup() {
+        return store.get(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Customer save() {
+        return store.put(customers[ThreadLocalRandom.current().nextInt(1, size + 1)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Customer mixedLookup() {
+        return store.get(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Customer mixedSave() {
+        return store.put(customers[ThreadLocalRandom.current().nextInt(1, size + 1)]);
+    }
+
+    /**
+     * Цена слияния шардов при обходе по возрастанию id (loadCustomers, страницы).
+     */
+    @Benchmark
+    public void orderedScan(Blackhole blackhole) {
+        for (Customer customer : store.ordered(Long.MIN_VALUE)) {
+            blackhole.consume(customer);
+        }
+    }
+}
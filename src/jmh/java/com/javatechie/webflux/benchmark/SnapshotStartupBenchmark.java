@@ -0,0 +1,160 @@
+package com.javatechie.webflux.benchmark;
+
+import com.javatechie.webflux.config.CustomerLogProperties;
+import com.javatechie.webflux.config.CustomerSnapshotProperties;
+import com.javatechie.webflux.dao.CustomerLog;
+import com.javatechie.webflux.dao.CustomerSnapshots;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время до готовности хранилища при старте: полный проигрыш журнала против снимка, отображённого
+ * в память, плюс хвост журнала (1% обновлений после снимка).
+ * <p>
+ * firstRead - до первого чтения клиента (со снимком это сразу после отображения файла),
+ * replayed - пока журнал не проигран целиком и хранилище не готово принимать сохранения.
+ * Индекс имён в замер не входит: он строится отдельно, при первом обходе хранилища.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SnapshotStartupBenchmark {
+
+    private static final int BATCH_SIZE = 4096;
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param({"log", "snapshot"})
+    private String start;
+
+    private Path dir;
+    private CustomerLog log;
+
+    @Setup(Level.Trial)
+    public void writeData() throws Exception {
+        dir = Files.createTempDirectory("customer-startup");
+        boolean snapshot = "snapshot".equals(start);
+        CustomerStore store = new CustomerStore();
+        CustomerLog writer = open(store, snapshot);
+        append(writer, 1, size, "customer");
+        if (snapshot) {
+            while (!snapshotTaken()) {
+                Thread.sleep(100);
+            }
+        }
+        append(writer, 1, size / 100, "renamed");
+        writer.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeLog() throws Exception {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteData() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Customer firstRead() throws Exception {
+        CustomerStore store = restore();
+        return store.get(size / 2);
+    }
+
+    @Benchmark
+    public Customer replayed() throws Exception {
+        CustomerStore store = restore();
+        log.replayed().get();
+        return store.get(size / 2);
+    }
+
+    private CustomerStore restore() throws IOException {
+        boolean snapshot = "snapshot".equals(start);
+        CustomerStore store = new CustomerStore();
+        ReflectionTestUtils.setField(store, "seedSize", 0);
+        ReflectionTestUtils.setField(store, "snapshots", snapshots(snapshot));
+        store.seed();
+        log = open(store, snapshot);
+        return store;
+    }
+
+    private void append(CustomerLog writer, int from, int to, String prefix) {
+        List<Customer> batch = new ArrayList<>(BATCH_SIZE);
+        for (int id = from; id <= to; id++) {
+            batch.add(new Customer(id, prefix + id));
+            if (batch.size() == BATCH_SIZE || id == to) {
+                writer.append(batch).block();
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+    }
+
+    private boolean snapshotTaken() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("snapshots"))) {
+            return files.anyMatch(file -> file.toString().endsWith(".snapshot"))
+                    && Files.size(dir.resolve("customers.log")) < size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private CustomerLog open(CustomerStore store, boolean snapshot) throws IOException {
+        CustomerLog opened = new CustomerLog();
+        ReflectionTestUtils.setField(opened, "properties", logProperties());
+        ReflectionTestUtils.setField(opened, "store", store);
+        ReflectionTestUtils.setField(opened, "snapshots", snapshots(snapshot));
+        opened.open();
+        return opened;
+    }
+
+    private CustomerLogProperties logProperties() {
+        CustomerLogProperties properties = new CustomerLogProperties();
+        properties.setPath(dir.resolve("customers.log").toString());
+        properties.setCompactionMinRecords(Long.MAX_VALUE);
+        return properties;
+    }
+
+    private CustomerSnapshots snapshots(boolean enabled) {
+        CustomerSnapshotProperties properties = new CustomerSnapshotProperties();
+        properties.setEnabled(enabled);
+        properties.setDir(dir.resolve("snapshots").toString());
+        properties.setMinRecords(size);
+        CustomerSnapshots snapshots = new CustomerSnapshots();
+        ReflectionTestUtils.setField(snapshots, "properties", properties);
+        ReflectionTestUtils.setField(snapshots, "logProperties", logProperties());
+        return snapshots;
+    }
+}
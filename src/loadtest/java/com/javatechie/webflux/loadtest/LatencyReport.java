@@ -0,0 +1,71 @@
+package com.javatechie.webflux.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Отчёт о прогоне: сводная таблица в {label}.txt и полные распределения в {label}-{scenario}.hgrm
+ * (формат HdrHistogram, открывается HistogramPlotter, удобно накладывать прогоны разных коммитов).
+ */
+public class LatencyReport {
+
+    private final LoadTestOptions options;
+    private final List<Scenario> scenarios;
+    private final Duration elapsed;
+
+    public LatencyReport(LoadTestOptions options, List<Scenario> scenarios, Duration elapsed) {
+        this.options = options;
+        this.scenarios = scenarios;
+        this.elapsed = elapsed;
+    }
+
+    public Path write() throws IOException {
+        Files.createDirectories(options.reportDir);
+        Path summary = options.reportDir.resolve(options.label + ".txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(summary), true, "UTF-8")) {
+            print(out);
+        }
+        for (Scenario scenario : scenarios) {
+            Path hgrm = options.reportDir.resolve(options.label + "-" + scenario.getName() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm), true, "UTF-8")) {
+                //значения в микросекундах, распределение - в миллисекундах
+                scenario.getLatency().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        return summary;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("label=%s date=%s java=%s%n", options.label, OffsetDateTime.now(), System.getProperty("java.version"));
+        out.printf("rate=%d/s warmup=%s duration=%s elapsed=%s seed-size=%d simulated-latency-ms=%d max-connections=%d%n",
+                options.rate, options.warmup, options.duration, elapsed, options.seedSize, options.simulatedLatencyMs,
+                options.maxConnections);
+        if (!options.appArgs.isEmpty()) {
+            out.printf("app=%s%n", String.join(" ", options.appArgs));
+        }
+        out.printf("%-26s %10s %8s %10s %10s %10s %10s %10s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        double seconds = elapsed.toNanos() / 1e9;
+        for (Scenario scenario : scenarios) {
+            Histogram latency = scenario.getLatency();
+            out.printf("%-26s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    scenario.getName(), latency.getTotalCount(), scenario.getErrors(),
+                    latency.getTotalCount() / seconds,
+                    millis(latency.getValueAtPercentile(50)),
+                    millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.javatechie.webflux.loadtest;
+
+import com.javatechie.webflux.SpringbootWebfluxDemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Нагрузочный прогон: поднимает приложение на случайном порту, нагружает его по открытой модели
+ * с localhost и пишет отчёт о пропускной способности и задержках.
+ * <p>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=1000 --duration=60s --label=$(git rev-parse --short HEAD)"
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        List<Scenario> scenarios = select(options.scenarios);
+
+        List<String> appArgs = new ArrayList<>(Arrays.asList("--server.port=0",
+                "--customer.store.seed-size=" + options.seedSize,
+                "--customer.dao.simulated-latency-ms=" + options.simulatedLatencyMs,
+                "--customer.log.enabled=false",
+                "--customer.rate-limit.enabled=false",
+                "--logging.level.root=warn"));
+        appArgs.addAll(options.appArgs);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringbootWebfluxDemoApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(appArgs.toArray(new String[0]));
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient client = HttpClient.create(connections)
+                    .baseUrl("http://localhost:" + port)
+                    .responseTimeout(options.drainTimeout);
+            OpenLoopGenerator generator = new OpenLoopGenerator(client, scenarios, options);
+
+            generator.run(options.warmup);
+            scenarios.forEach(Scenario::reset);
+
+            long start = System.nanoTime();
+            generator.run(options.duration);
+            LatencyReport report = new LatencyReport(options, scenarios, Duration.ofNanos(System.nanoTime() - start));
+            Path summary = report.write();
+            report.print(System.out);
+            System.out.println("Report written to " + summary.toAbsolutePath());
+        } finally {
+            connections.disposeLater().block();
+            context.close();
+        }
+    }
+
+    private static List<Scenario> select(List<String> names) {
+        Map<String, Scenario> all = Scenario.all();
+        List<Scenario> selected = new ArrayList<>();
+        for (String name : names) {
+            Scenario scenario = all.get(name.trim());
+            if (scenario == null) {
+                throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + all.keySet());
+            }
+            selected.add(scenario);
+        }
+        return selected;
+    }
+}
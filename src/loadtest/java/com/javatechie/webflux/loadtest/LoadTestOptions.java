@@ -0,0 +1,91 @@
+package com.javatechie.webflux.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --rate=500 --duration=30s.
+ */
+public class LoadTestOptions {
+
+    /**
+     * Запросов в секунду на все сценарии вместе; запросы отправляются по расписанию, не дожидаясь ответов.
+     */
+    final int rate;
+    final Duration warmup;
+    final Duration duration;
+    final List<String> scenarios;
+    final int seedSize;
+
+    /**
+     * Задержка CustomerDao.getCustomers на каждого клиента; в приложении по умолчанию 1000 мс.
+     */
+    final long simulatedLatencyMs;
+    final int maxConnections;
+
+    /**
+     * Запросы сверх этого числа не отправляются и считаются ошибками: сервер уже не справляется.
+     */
+    final int maxInFlight;
+    final Duration drainTimeout;
+
+    /**
+     * Имя отчёта, например короткий хеш коммита.
+     */
+    final String label;
+    final Path reportDir;
+
+    /**
+     * Свойства приложения из аргументов вида --app.customer.netty.event-loop-threads=2,
+     * чтобы сравнивать конфигурации одним и тем же прогоном.
+     */
+    final List<String> appArgs;
+
+    private LoadTestOptions(Map<String, String> args, List<String> appArgs) {
+        this.appArgs = appArgs;
+        rate = Integer.parseInt(args.getOrDefault("rate", "500"));
+        warmup = DurationStyle.detectAndParse(args.getOrDefault("warmup", "10s"));
+        duration = DurationStyle.detectAndParse(args.getOrDefault("duration", "30s"));
+        scenarios = Arrays.asList(args.getOrDefault("scenarios",
+                "router-customer,router-customers,router-customers-search,customers").split(","));
+        seedSize = Integer.parseInt(args.getOrDefault("seed-size", "10000"));
+        simulatedLatencyMs = Long.parseLong(args.getOrDefault("simulated-latency-ms", "0"));
+        maxConnections = Integer.parseInt(args.getOrDefault("max-connections", "256"));
+        maxInFlight = Integer.parseInt(args.getOrDefault("max-in-flight", "10000"));
+        drainTimeout = DurationStyle.detectAndParse(args.getOrDefault("drain-timeout", "30s"));
+        label = args.getOrDefault("label", "report");
+        reportDir = Paths.get(args.getOrDefault("report-dir", "target/loadtest"));
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        List<String> appArgs = new ArrayList<>();
+        return new LoadTestOptions(values(args, appArgs), appArgs);
+    }
+
+    /**
+     * Разбирает аргументы --name=value; свойства приложения (--app.*) складываются в appArgs без префикса app.
+     */
+    static Map<String, String> values(String[] args, List<String> appArgs) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            if (arg.startsWith("--app.")) {
+                appArgs.add("--" + arg.substring("--app.".length()));
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return values;
+    }
+}
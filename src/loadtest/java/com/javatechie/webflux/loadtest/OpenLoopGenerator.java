@@ -0,0 +1,80 @@
+package com.javatechie.webflux.loadtest;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки по открытой модели: запросы уходят строго по расписанию, независимо от того,
+ * ответил ли сервер на предыдущие. Задержка считается от момента, когда запрос должен был уйти,
+ * поэтому отставание генератора или очередь на сервере попадают в гистограмму, а не прячутся
+ * (coordinated omission).
+ */
+public class OpenLoopGenerator {
+
+    private final HttpClient client;
+    private final List<Scenario> scenarios;
+    private final LoadTestOptions options;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Random random = new Random(42);
+
+    public OpenLoopGenerator(HttpClient client, List<Scenario> scenarios, LoadTestOptions options) {
+        this.client = client;
+        this.scenarios = scenarios;
+        this.options = options;
+    }
+
+    /**
+     * Отправляет запросы в течение duration, сценарии по очереди, и ждёт оставшиеся ответы.
+     *
+     * @return сколько запросов было запланировано
+     */
+    public long run(Duration duration) {
+        long period = 1_000_000_000L / options.rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long scheduled = 0;
+        for (long intended = start; intended < end; intended += period) {
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = scenarios.get((int) (scheduled++ % scenarios.size()));
+            if (inFlight.get() >= options.maxInFlight) {
+                scenario.error();
+                continue;
+            }
+            send(scenario, intended);
+        }
+        drain();
+        return scheduled;
+    }
+
+    private void send(Scenario scenario, long intended) {
+        inFlight.incrementAndGet();
+        client.get()
+                .uri(scenario.path(random, options.seedSize))
+                .response((response, body) -> body.then(Mono.just(response.status().code())))
+                .single()
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(status -> {
+                    if (status < 400) {
+                        scenario.success(System.nanoTime() - intended);
+                    } else {
+                        scenario.error();
+                    }
+                }, error -> scenario.error());
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + options.drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.javatechie.webflux.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Один вид запроса и накопленная по нему статистика. Задержка - в микросекундах.
+ */
+public class Scenario {
+
+    private final String name;
+    private final BiFunction<Random, Integer, String> path;
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final AtomicLong errors = new AtomicLong();
+
+    Scenario(String name, BiFunction<Random, Integer, String> path) {
+        this.name = name;
+        this.path = path;
+    }
+
+    /**
+     * Все известные сценарии. Поток /customers/stream отдаёт 10 событий по секунде, поэтому по умолчанию
+     * не входит в прогон. /router/customers/stream - бесконечная лента изменений, для прогона по
+     * открытой модели она не подходит.
+     */
+    static Map<String, Scenario> all() {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        add(scenarios, new Scenario("router-customer", (random, size) -> "/router/customer/" + (random.nextInt(size) + 1)));
+        add(scenarios, new Scenario("router-customers", (random, size) -> "/router/customers?limit=100"));
+        add(scenarios, new Scenario("router-customers-search",
+                (random, size) -> "/router/customers/search?q=customer" + (random.nextInt(size) + 1)));
+        add(scenarios, new Scenario("router-customers-multi-get", (random, size) -> {
+            StringBuilder ids = new StringBuilder("/router/customers?ids=");
+            for (int i = 0; i < 200; i++) {
+                ids.append(i == 0 ? "" : ",").append(random.nextInt(size) + 1);
+            }
+            return ids.toString();
+        }));
+        add(scenarios, new Scenario("customers", (random, size) -> "/customers"));
+        add(scenarios, new Scenario("customers-stream", (random, size) -> "/customers/stream"));
+        return scenarios;
+    }
+
+    private static void add(Map<String, Scenario> scenarios, Scenario scenario) {
+        scenarios.put(scenario.name, scenario);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String path(Random random, int seedSize) {
+        return path.apply(random, seedSize);
+    }
+
+    void success(long latencyNanos) {
+        latency.recordValue(Math.max(1, latencyNanos / 1000));
+    }
+
+    void error() {
+        errors.incrementAndGet();
+    }
+
+    void reset() {
+        latency.reset();
+        errors.set(0);
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
@@ -0,0 +1,172 @@
+package com.javatechie.webflux.loadtest;
+
+import com.javatechie.webflux.SpringbootWebfluxDemoApplication;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время старта в разных режимах: каждый прогон - новая JVM, время считается от запуска процесса
+ * до первого успешного ответа на GET /router/customer/1.
+ * <p>
+ * Режим - набор через '+': lazy (spring.main.lazy-initialization), functional
+ * (customer.startup.functional-beans), cds (архив AppCDS из --cds-archive); default - без них.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.javatechie.webflux.loadtest.StartupBenchmark \
+ *     -Dloadtest.args="--runs=10 --modes=default,lazy,functional+lazy"
+ * mvn -Pappcds package
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.javatechie.webflux.loadtest.StartupBenchmark \
+ *     -Dloadtest.args="--jar=target/appcds/springboot-webflux-demo-0.0.1-SNAPSHOT-appcds.jar --cds-archive=target/appcds/app.jsa"
+ * </pre>
+ * Без --jar приложение запускается с classpath самого бенчмарка. AppCDS требует, чтобы классы
+ * приложения лежали в jar, поэтому режимы с cds работают только с --jar.
+ */
+public class StartupBenchmark {
+
+    private static final String PATH = "/router/customer/1";
+
+    public static void main(String[] args) throws Exception {
+        List<String> appArgs = new ArrayList<>();
+        Map<String, String> options = LoadTestOptions.values(args, appArgs);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Duration timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "120s"));
+        String jar = options.get("jar");
+        String archive = options.get("cds-archive");
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", archive == null
+                ? "default,lazy,functional,functional+lazy"
+                : "default,lazy,functional+lazy,cds,cds+lazy,cds+functional+lazy").split(","));
+        String label = options.getOrDefault("label", "startup");
+        Path reportDir = Paths.get(options.getOrDefault("report-dir", "target/loadtest"));
+        Files.createDirectories(reportDir);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            List<String> flags = Arrays.asList(mode.trim().split("\\+"));
+            if (flags.contains("cds") && (archive == null || jar == null)) {
+                throw new IllegalArgumentException("Mode " + mode + " needs --jar and --cds-archive");
+            }
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = startOnce(client, command(flags, jar, archive, freePort(), appArgs),
+                        reportDir.resolve(label + "-" + mode.trim() + ".log"), timeout);
+                System.out.printf("%-22s run %d: %d ms%n", mode.trim(), run + 1, millis[run]);
+            }
+            results.put(mode.trim(), millis);
+        }
+
+        Path summary = reportDir.resolve(label + ".txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(summary), true, "UTF-8")) {
+            print(out, label, jar, appArgs, results);
+        }
+        print(System.out, label, jar, appArgs, results);
+        System.out.println("Report written to " + summary.toAbsolutePath());
+    }
+
+    private static List<String> command(List<String> flags, String jar, String archive, int port, List<String> appArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (flags.contains("cds")) {
+            command.add("-Xshare:auto");
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        if (jar != null) {
+            command.add("-jar");
+            command.add(jar);
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(SpringbootWebfluxDemoApplication.class.getName());
+        }
+        command.add("--server.port=" + port);
+        command.add("--customer.log.enabled=false");
+        command.add("--customer.rate-limit.enabled=false");
+        if (flags.contains("lazy")) {
+            command.add("--spring.main.lazy-initialization=true");
+        }
+        if (flags.contains("functional")) {
+            command.add("--customer.startup.functional-beans=true");
+        }
+        command.addAll(appArgs);
+        return command;
+    }
+
+    /**
+     * Запускает приложение, опрашивает его до первого ответа 200 и останавливает.
+     *
+     * @return миллисекунды от запуска процесса до первого успешного ответа
+     */
+    private static long startOnce(HttpClient client, List<String> command, Path log, Duration timeout) throws Exception {
+        String port = command.stream().filter(arg -> arg.startsWith("--server.port=")).findFirst().get()
+                .substring("--server.port=".length());
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PATH))
+                .timeout(timeout).build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    //сервер ещё не слушает порт
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful response within " + timeout + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void print(PrintStream out, String label, String jar, List<String> appArgs, Map<String, long[]> results) {
+        out.printf("label=%s date=%s java=%s classpath=%s%n", label, OffsetDateTime.now(),
+                System.getProperty("java.version"), jar == null ? "benchmark" : new File(jar).getName());
+        if (!appArgs.isEmpty()) {
+            out.printf("app=%s%n", String.join(" ", appArgs));
+        }
+        out.printf("%-22s %6s %10s %10s %10s%n", "mode", "runs", "min ms", "median ms", "max ms");
+        for (Map.Entry<String, long[]> result : results.entrySet()) {
+            long[] millis = result.getValue().clone();
+            Arrays.sort(millis);
+            out.printf("%-22s %6d %10d %10d %10d%n", result.getKey(), millis.length,
+                    millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package com.javatechie.webflux;
 
+import com.javatechie.webflux.config.FunctionalBeans;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringbootWebfluxDemoApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringbootWebfluxDemoApplication.class, args);
+		application(args).run(args);
+	}
+
+	/**
+	 * Приложение в выбранном режиме старта: по умолчанию со сканированием classpath,
+	 * с --customer.startup.functional-beans=true - с явной регистрацией бинов ({@link FunctionalBeans}).
+	 * Ленивая инициализация включается обычным spring.main.lazy-initialization.
+	 */
+	public static SpringApplication application(String... args) {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+		if (!environment.getProperty("customer.startup.functional-beans", Boolean.class, false)) {
+			return new SpringApplication(SpringbootWebfluxDemoApplication.class);
+		}
+		SpringApplication application = new SpringApplication(FunctionalBeans.Application.class);
+		application.addInitializers(new FunctionalBeans());
+		return application;
 	}
 
 }
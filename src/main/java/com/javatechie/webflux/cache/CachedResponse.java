@@ -0,0 +1,47 @@
+package com.javatechie.webflux.cache;
+
+import com.javatechie.webflux.dto.Customer;
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * Закодированный ответ для одного клиента вместе с ETag для условных запросов.
+ * <p>
+ * Last-Modified не отдаётся: время изменения клиента нигде не хранится, а время кодирования сдвигалось бы
+ * после вытеснения из кэша без всяких изменений. ETag - хеш тела, он меняется только вместе с данными.
+ */
+@Getter
+public class CachedResponse {
+
+    /**
+     * Экземпляр, из которого получено тело. Пока он лежит в хранилище, ответ актуален.
+     */
+    private final Customer customer;
+    private final byte[] body;
+    private final String eTag;
+
+    CachedResponse(Customer customer, byte[] body, String eTag) {
+        this.customer = customer;
+        this.body = body;
+        this.eTag = eTag;
+    }
+
+    /**
+     * true, если у клиента уже есть эта версия ответа: If-None-Match (слабое сравнение).
+     */
+    public boolean isNotModified(HttpHeaders requestHeaders) {
+        String tag = opaqueTag(eTag);
+        for (String candidate : requestHeaders.getIfNoneMatch()) {
+            if ("*".equals(candidate) || tag.equals(opaqueTag(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
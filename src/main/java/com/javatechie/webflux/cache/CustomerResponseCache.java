@@ -0,0 +1,112 @@
+package com.javatechie.webflux.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javatechie.webflux.codec.CustomerEncoders;
+import com.javatechie.webflux.codec.WireFormat;
+import com.javatechie.webflux.config.CustomerCacheProperties;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dao.CustomerStoreListener;
+import com.javatechie.webflux.dto.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Ограниченный по размеру кэш закодированных клиентов (W-TinyLFU из Caffeine), отдельная запись
+ * на каждый {@link WireFormat}.
+ * <p>
+ * Запись сбрасывается при сохранении клиента. Кроме того, при каждом попадании запись сверяется с
+ * текущим экземпляром в хранилище, так что ответ, закодированный параллельно с сохранением,
+ * не может пережить это сохранение.
+ * <p>
+ * Одновременные промахи по одному id склеиваются через {@link SingleFlight}: клиент загружается
+ * и кодируется один раз, остальные запросы ждут тот же результат.
+ */
+@Component
+public class CustomerResponseCache implements CustomerStoreListener {
+
+    @Autowired
+    private CustomerStore store;
+
+    @Autowired
+    private CustomerEncoders encoders;
+
+    @Autowired
+    private CustomerCacheProperties properties;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Cache<Long, CachedResponse> cache;
+    private SingleFlight<Long, CachedResponse> singleFlight;
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .recordStats();
+            if (properties.getTtl() != null && !properties.getTtl().isZero()) {
+                builder.expireAfterWrite(properties.getTtl());
+            }
+            cache = CaffeineCacheMetrics.monitor(registry, builder.build(), "customer-responses");
+        }
+        singleFlight = new SingleFlight<>("customer-lookup", registry);
+        store.addListener(this);
+    }
+
+    /**
+     * @return готовый ответ или пустой Mono, если клиента нет
+     */
+    public Mono<CachedResponse> lookup(int id, WireFormat format) {
+        Customer customer = store.get(id);
+        if (customer == null) {
+            return Mono.empty();
+        }
+        long key = key(id, format);
+        if (cache != null) {
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null && cached.getCustomer() == customer) {
+                return Mono.just(cached);
+            }
+        }
+        return singleFlight.execute(key, () -> Mono.fromCallable(() -> load(id, format)));
+    }
+
+    @Override
+    public void customerSaved(Customer previous, Customer current) {
+        if (cache != null && previous != null) {
+            for (WireFormat format : WireFormat.values()) {
+                cache.invalidate(key(current.getId(), format));
+            }
+        }
+    }
+
+    private static long key(int id, WireFormat format) {
+        return ((long) id << 2) | format.ordinal();
+    }
+
+    private CachedResponse load(int id, WireFormat format) {
+        Customer customer = store.get(id);
+        if (customer == null) {
+            return null;
+        }
+        CachedResponse response = encode(customer, format);
+        if (cache != null) {
+            cache.put(key(id, format), response);
+        }
+        return response;
+    }
+
+    private CachedResponse encode(Customer customer, WireFormat format) {
+        byte[] body = encoders.encode(customer, format);
+        String eTag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+        return new CachedResponse(customer, body, eTag);
+    }
+}
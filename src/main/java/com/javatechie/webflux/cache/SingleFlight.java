@@ -0,0 +1,78 @@
+package com.javatechie.webflux.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Склеивание одновременных одинаковых запросов: пока загрузка по ключу не завершилась, все новые
+ * вызовы с тем же ключом получают тот же Mono и не запускают загрузку повторно.
+ * <p>
+ * Загрузка разделяется через replay(1).refCount(): отмена одного подписчика не отменяет загрузку
+ * для остальных, загрузка отменяется только когда отписались все. После завершения (или отмены)
+ * ключ удаляется, следующий вызов начнёт новую загрузку.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.leaders = Counter.builder("single.flight.calls")
+                .tag("name", name)
+                .tag("result", "leader")
+                .register(registry);
+        this.coalesced = Counter.builder("single.flight.calls")
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder("single.flight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .tag("name", name)
+                .description("Доля вызовов, присоединившихся к уже идущей загрузке")
+                .register(registry);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        Mono<V> existing = inFlight.get(key);
+        if (existing == null) {
+            Mono<V> created = share(key, loader);
+            existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                leaders.increment();
+                return created;
+            }
+        }
+        coalesced.increment();
+        return existing;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public double coalescingRatio() {
+        double total = leaders.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    private Mono<V> share(K key, Supplier<Mono<V>> loader) {
+        @SuppressWarnings("unchecked")
+        Mono<V>[] self = new Mono[1];
+        Runnable release = () -> inFlight.remove(key, self[0]);
+        //ключ освобождается до того, как результат уйдёт подписчикам
+        self[0] = Mono.defer(loader)
+                .doOnTerminate(release)
+                .doOnCancel(release)
+                .flux()
+                .replay(1)
+                .refCount()
+                .singleOrEmpty();
+        return self[0];
+    }
+}
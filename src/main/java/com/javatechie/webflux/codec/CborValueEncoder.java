@@ -0,0 +1,39 @@
+package com.javatechie.webflux.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Кодировщик CBOR только для application/cbor.
+ * <p>
+ * В Spring 5.3 Jackson2CborEncoder не умеет encode даже для одного значения, а EncoderHttpMessageWriter
+ * вызывает именно encode, поэтому Mono (один клиент или собранный список) кодируется через encodeValue.
+ * Поток из нескольких значений по-прежнему не поддерживается.
+ */
+public class CborValueEncoder extends Jackson2CborEncoder {
+
+    public CborValueEncoder(ObjectMapper mapper) {
+        super(mapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+    }
+}
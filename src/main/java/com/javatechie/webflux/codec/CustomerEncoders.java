@@ -0,0 +1,91 @@
+package com.javatechie.webflux.codec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кодировщики клиентов для каждого доступного {@link WireFormat}, взятые из кодеков WebFlux,
+ * чтобы заранее закодированные ответы совпадали с тем, что написал бы сам WebFlux.
+ */
+@Component
+public class CustomerEncoders {
+
+    @Autowired
+    private ServerCodecConfigurer codecConfigurer;
+
+    private final Map<WireFormat, Encoder<Object>> encoders = new EnumMap<>(WireFormat.class);
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        ResolvableType type = ResolvableType.forClass(Object.class);
+        for (WireFormat format : WireFormat.values()) {
+            for (HttpMessageWriter<?> writer : codecConfigurer.getWriters()) {
+                if (writer instanceof EncoderHttpMessageWriter) {
+                    Encoder<?> encoder = ((EncoderHttpMessageWriter<?>) writer).getEncoder();
+                    if (encoder.canEncode(type, format.getMediaType())) {
+                        encoders.put(format, (Encoder<Object>) encoder);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean supports(WireFormat format) {
+        return encoders.containsKey(format);
+    }
+
+    /**
+     * Лучший из доступных форматов для заголовка Accept. Пустой Accept - JSON.
+     *
+     * @return формат или null, если ни один не подходит (406)
+     */
+    public WireFormat negotiate(List<MediaType> accept) {
+        if (accept.isEmpty()) {
+            return WireFormat.JSON;
+        }
+        List<MediaType> sorted = new ArrayList<>(accept);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType mediaType : sorted) {
+            for (WireFormat format : encoders.keySet()) {
+                if (mediaType.isCompatibleWith(format.getMediaType())) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    public byte[] encode(Object value, WireFormat format) {
+        Encoder<Object> encoder = encoders.get(format);
+        if (encoder == null) {
+            throw new IllegalStateException("No encoder for " + format);
+        }
+        DataBuffer buffer = encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(value), format.getMediaType(), Collections.emptyMap());
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.javatechie.webflux.codec;
+
+import com.javatechie.webflux.config.CustomerEncodingProperties;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dao.CustomerStoreListener;
+import com.javatechie.webflux.dto.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Закодированный в JSON вид каждого клиента, который строится при первом обращении и живёт, пока
+ * клиент не изменится. Списки в JSON и NDJSON собираются из этих байтов без повторной сериализации:
+ * байты оборачиваются в буферы канала без копирования и склеиваются пачками.
+ * <p>
+ * CBOR и Smile так не собираются (у Smile есть заголовок документа и ссылки на уже записанные имена),
+ * они кодируются обычными кодеками.
+ */
+@Component
+public class PreEncodedCustomers implements CustomerStoreListener {
+
+    private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMA = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private CustomerStore store;
+
+    @Autowired
+    private CustomerEncoders encoders;
+
+    @Autowired
+    private CustomerEncodingProperties properties;
+
+    private final Map<Integer, Encoded> encoded = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        store.addListener(this);
+    }
+
+    /**
+     * JSON или NDJSON, если это лучший тип в Accept, иначе null - список пишется обычными кодеками.
+     */
+    public MediaType select(List<MediaType> accept) {
+        if (!properties.isPreEncoded()) {
+            return null;
+        }
+        if (accept.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> sorted = new ArrayList<>(accept);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        MediaType best = sorted.get(0);
+        if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(best)) {
+            return MediaType.APPLICATION_NDJSON;
+        }
+        return best.isCompatibleWith(MediaType.APPLICATION_JSON) ? MediaType.APPLICATION_JSON : null;
+    }
+
+    public byte[] json(Customer customer) {
+        Encoded entry = encoded.get(customer.getId());
+        if (entry == null || entry.customer != customer) {
+            entry = new Encoded(customer, encoders.encode(customer, WireFormat.JSON));
+            encoded.put(customer.getId(), entry);
+        }
+        return entry.bytes;
+    }
+
+    public BodyInserter<Flux<Customer>, ReactiveHttpOutputMessage> inserter(Flux<Customer> customers, MediaType mediaType) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType);
+        return (message, context) -> message.writeWith(ndjson
+                ? ndjson(customers, message.bufferFactory())
+                : jsonArray(customers, message.bufferFactory()));
+    }
+
+    /**
+     * Для ограниченных списков (страница, поиск, multi-get): тело собирается в один буфер и уходит
+     * с Content-Length, так что порог server.compression.min-response-size к нему применяется.
+     * Ответы без длины (весь список потоком) сжимаются всегда.
+     */
+    public BodyInserter<Flux<Customer>, ReactiveHttpOutputMessage> boundedInserter(Flux<Customer> customers, MediaType mediaType) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType);
+        return (message, context) -> message.writeWith(DataBufferUtils.join(ndjson
+                        ? ndjson(customers, message.bufferFactory())
+                        : jsonArray(customers, message.bufferFactory()))
+                .doOnNext(body -> message.getHeaders().setContentLength(body.readableByteCount())));
+    }
+
+    public int size() {
+        return encoded.size();
+    }
+
+    @Override
+    public void customerSaved(Customer previous, Customer current) {
+        if (previous != null) {
+            encoded.remove(current.getId());
+        }
+    }
+
+    private Flux<DataBuffer> jsonArray(Flux<Customer> customers, DataBufferFactory factory) {
+        return Flux.defer(() -> {
+            boolean[] first = {true};
+            Flux<DataBuffer> items = customers.buffer(properties.getBatchSize())
+                    .map(batch -> {
+                        List<DataBuffer> parts = new ArrayList<>(batch.size() * 2);
+                        for (Customer customer : batch) {
+                            if (!first[0]) {
+                                parts.add(factory.wrap(COMMA));
+                            }
+                            first[0] = false;
+                            parts.add(factory.wrap(json(customer)));
+                        }
+                        return factory.join(parts);
+                    });
+            return Flux.concat(Mono.fromSupplier(() -> factory.wrap(ARRAY_START)), items,
+                    Mono.fromSupplier(() -> factory.wrap(ARRAY_END)));
+        });
+    }
+
+    private Flux<DataBuffer> ndjson(Flux<Customer> customers, DataBufferFactory factory) {
+        return customers.buffer(properties.getBatchSize())
+                .map(batch -> {
+                    List<DataBuffer> parts = new ArrayList<>(batch.size() * 2);
+                    for (Customer customer : batch) {
+                        parts.add(factory.wrap(json(customer)));
+                        parts.add(factory.wrap(NEW_LINE));
+                    }
+                    return factory.join(parts);
+                });
+    }
+
+    private static final class Encoded {
+        final Customer customer;
+        final byte[] bytes;
+
+        Encoded(Customer customer, byte[] bytes) {
+            this.customer = customer;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.javatechie.webflux.codec;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Форматы, в которых сервис отдаёт и принимает клиентов. Выбираются по Accept / Content-Type.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON, true),
+    CBOR(MediaType.APPLICATION_CBOR, false),
+    SMILE(new MediaType("application", "x-jackson-smile"), true);
+
+    private final MediaType mediaType;
+    private final boolean streamEncoding;
+
+    WireFormat(MediaType mediaType, boolean streamEncoding) {
+        this.mediaType = mediaType;
+        this.streamEncoding = streamEncoding;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * false, если кодировщик формата не умеет писать Flux и список нужно сначала собрать (CBOR в Spring 5.3).
+     */
+    public boolean isStreamEncoding() {
+        return streamEncoding;
+    }
+}
@@ -0,0 +1,46 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Настройки планировщика для блокирующих вызовов (DAO, внешние сервисы).
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.blocking")
+public class BlockingSchedulerProperties {
+
+    /**
+     * На чём выполняются блокирующие задачи. VIRTUAL - каждая задача на своём виртуальном потоке (JDK 21+),
+     * на JVM без виртуальных потоков используется BOUNDED_ELASTIC.
+     */
+    private Type type = Type.VIRTUAL;
+
+    /**
+     * Максимальное число потоков (BOUNDED_ELASTIC), одновременно выполняющих блокирующие задачи.
+     */
+    private int maxThreads = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+    /**
+     * Максимальное число одновременно выполняющихся задач (VIRTUAL). Виртуальные потоки дешёвые, но то,
+     * что за ними (соединения, внешний сервис), - нет; остальные задачи ждут в очереди queueCapacity.
+     */
+    private int maxVirtualThreads = 10_000;
+
+    /**
+     * Максимальное число задач в очереди, когда все потоки (или разрешения VIRTUAL) заняты. При переполнении
+     * задача завершается с RejectedExecutionException.
+     */
+    private int queueCapacity = Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+    /**
+     * Время жизни простаивающего потока, в секундах.
+     */
+    private int keepAliveSeconds = 60;
+
+    public enum Type {
+        VIRTUAL,
+        BOUNDED_ELASTIC
+    }
+}
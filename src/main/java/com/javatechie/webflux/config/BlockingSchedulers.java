@@ -0,0 +1,195 @@
+package com.javatechie.webflux.config;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Планировщики для блокирующих вызовов.
+ * <p>
+ * Виртуальные потоки появились в JDK 21, а проект собирается под Java 11, поэтому они создаются через
+ * рефлексию: Thread.ofVirtual().name(name + "-", 0).factory() и Executors.newThreadPerTaskExecutor.
+ * Поток не держит свой стек, пока задача спит в блокирующем вызове, так что десятки тысяч одновременных
+ * вызовов не требуют десятков тысяч потоков ОС. Но ресурс за вызовом (соединения, внешний сервис) не
+ * бесконечен, поэтому и у виртуальных потоков есть предел одновременных задач и очередь: лишние задачи ждут
+ * разрешения, припаркованные на своём виртуальном потоке, а сверх очереди отклоняются.
+ */
+public final class BlockingSchedulers {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final Method NAME = method("java.lang.Thread$Builder", "name", String.class, long.class);
+    private static final Method FACTORY = method("java.lang.Thread$Builder", "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+            method(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private BlockingSchedulers() {
+    }
+
+    /**
+     * Планировщик по настройкам; VIRTUAL без поддержки JVM становится BOUNDED_ELASTIC.
+     */
+    public static Scheduler create(BlockingSchedulerProperties properties, String name) {
+        if (properties.getType() == BlockingSchedulerProperties.Type.VIRTUAL && virtualThreadsSupported()) {
+            return virtualThreads(name, properties.getMaxVirtualThreads(), properties.getQueueCapacity());
+        }
+        return Schedulers.newBoundedElastic(properties.getMaxThreads(), properties.getQueueCapacity(),
+                name, properties.getKeepAliveSeconds(), true);
+    }
+
+    /**
+     * Есть ли в JVM виртуальные потоки (JDK 21+, или 19-20 с --enable-preview).
+     */
+    public static boolean virtualThreadsSupported() {
+        return virtualThreadFactory("probe") != null;
+    }
+
+    /**
+     * Каждая задача выполняется на новом виртуальном потоке name-N, без ограничений.
+     *
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public static Scheduler virtualThreads(String name) {
+        return Schedulers.fromExecutorService(virtualThreadExecutor(name), name);
+    }
+
+    /**
+     * Как {@link #virtualThreads(String)}, но одновременно выполняется не больше maxConcurrent задач,
+     * и ещё не больше queueCapacity ждут.
+     *
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public static Scheduler virtualThreads(String name, int maxConcurrent, int queueCapacity) {
+        return Schedulers.fromExecutorService(limit(virtualThreadExecutor(name), maxConcurrent, queueCapacity), name);
+    }
+
+    /**
+     * Ограничивает executor, который сам не ограничен (поток на задачу): задача сначала получает
+     * разрешение из maxConcurrent, ожидая его в своём потоке, а если уже ждут queueCapacity задач,
+     * execute бросает RejectedExecutionException - как переполненная очередь BOUNDED_ELASTIC.
+     * Задача, отменённая во время ожидания, не выполняется.
+     */
+    public static ExecutorService limit(ExecutorService executor, int maxConcurrent, int queueCapacity) {
+        return new LimitedExecutorService(executor, maxConcurrent, queueCapacity);
+    }
+
+    private static ExecutorService virtualThreadExecutor(String name) {
+        ThreadFactory factory = virtualThreadFactory(name);
+        if (factory == null) {
+            throw new IllegalStateException("Virtual threads are not supported by Java " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name) {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            //на JDK 19-20 без --enable-preview ofVirtual() бросает UnsupportedOperationException
+            return null;
+        }
+    }
+
+    private static Method method(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return method(Class.forName(className), name, parameterTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static final class LimitedExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final int maxTasks;
+        //выполняются и ждут разрешения
+        private final AtomicInteger tasks = new AtomicInteger();
+
+        LimitedExecutorService(ExecutorService delegate, int maxConcurrent, int queueCapacity) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrent);
+            this.maxTasks = maxConcurrent + queueCapacity;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (tasks.incrementAndGet() > maxTasks) {
+                tasks.decrementAndGet();
+                throw new RejectedExecutionException("Blocking tasks limit " + maxTasks + " reached");
+            }
+            try {
+                delegate.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                tasks.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void run(Runnable task) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                tasks.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+                tasks.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки массовой загрузки клиентов (POST /router/customer/bulk).
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.bulk")
+public class BulkIngestProperties {
+
+    /**
+     * Сколько клиентов из входного потока сохраняется одной пачкой.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Сколько пачек одного запроса может одновременно ждать записи в журнал.
+     */
+    private int maxInFlightBatches = 4;
+}
@@ -0,0 +1,53 @@
+package com.javatechie.webflux.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.webflux.codec.CborValueEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Бинарные форматы в дополнение к JSON: application/cbor и application/x-jackson-smile.
+ * Используются и роутером, и контроллером, формат выбирается по Accept / Content-Type.
+ * <p>
+ * Каждый формат регистрируется, только если его модуль jackson-dataformat есть в classpath.
+ * JSON остаётся форматом по умолчанию (без Accept или с *&#47;*).
+ */
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final boolean jackson2CborPresent =
+            ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory", CodecConfig.class.getClassLoader());
+
+    private static final boolean jackson2SmilePresent =
+            ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory", CodecConfig.class.getClassLoader());
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        if (jackson2CborPresent) {
+            //пользовательские кодеки стоят перед стандартными, и без Accept выбирается первый подходящий,
+            //поэтому перед CBOR ещё раз регистрируется кодировщик JSON
+            configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+            //без явного типа Spring 5.3 отдаёт кодекам CBOR типы JSON
+            ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+            configurer.customCodecs().register(new CborValueEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        }
+        if (jackson2SmilePresent) {
+            ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        }
+    }
+}
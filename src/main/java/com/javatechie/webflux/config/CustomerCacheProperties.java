@@ -0,0 +1,26 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша готовых ответов GET /router/customer/{input}.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.cache")
+public class CustomerCacheProperties {
+
+    /**
+     * Если false, ответ кодируется на каждый запрос, но ETag и 304 всё равно работают.
+     */
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    /**
+     * Время жизни записи после кодирования. Не задано - записи живут до вытеснения или изменения клиента.
+     */
+    private Duration ttl;
+}
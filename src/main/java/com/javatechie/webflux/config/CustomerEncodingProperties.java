@@ -0,0 +1,22 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки выдачи списков клиентов из заранее закодированных байтов.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.encoding")
+public class CustomerEncodingProperties {
+
+    /**
+     * Хранить закодированный JSON каждого клиента и писать списки копированием байтов, без Jackson.
+     */
+    private boolean preEncoded = true;
+
+    /**
+     * Сколько клиентов склеивается в один буфер при записи в канал.
+     */
+    private int batchSize = 256;
+}
@@ -0,0 +1,35 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки журнала сохранений клиентов (append-only log).
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.log")
+public class CustomerLogProperties {
+
+    /**
+     * Если выключено, сохранения попадают только в память.
+     */
+    private boolean enabled = true;
+
+    private String path = "data/customers.log";
+
+    /**
+     * Максимальное число записей, которое фиксируется одним fsync.
+     */
+    private int maxBatchSize = 4096;
+
+    /**
+     * Компактирование запускается, когда записей в журнале больше, чем
+     * compaction-ratio * число живых клиентов...
+     */
+    private double compactionRatio = 3.0;
+
+    /**
+     * ...и не меньше этого порога.
+     */
+    private long compactionMinRecords = 100_000;
+}
@@ -0,0 +1,20 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки выборки по списку id: GET /router/customers?ids= и POST /router/customers/multi-get.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.multi-get")
+public class CustomerMultiGetProperties {
+
+    private int maxIds = 10000;
+
+    /**
+     * Предельная длина заголовка X-Missing-Ids; более длинный список обрезается, полное число
+     * ненайденных id всегда есть в X-Missing-Count.
+     */
+    private int maxMissingHeaderLength = 2048;
+}
@@ -0,0 +1,19 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки постраничной выдачи GET /router/customers?limit=&after=.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.page")
+public class CustomerPageProperties {
+
+    private int maxLimit = 1000;
+
+    /**
+     * Сколько клиентов запрашивается у источника за раз (limitRate), в том числе при выдаче всего списка.
+     */
+    private int prefetch = 256;
+}
@@ -0,0 +1,16 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки поиска GET /router/customers/search?q=&limit=.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.search")
+public class CustomerSearchProperties {
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 1000;
+}
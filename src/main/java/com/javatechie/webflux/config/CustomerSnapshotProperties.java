@@ -0,0 +1,31 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки бинарных снимков клиентов. Снимки работают только вместе с журналом (customer.log.enabled).
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.snapshot")
+public class CustomerSnapshotProperties {
+
+    /**
+     * Если выключено, журнал при старте проигрывается целиком и сжимается компактированием.
+     */
+    private boolean enabled = true;
+
+    private String dir = "data/snapshots";
+
+    /**
+     * Снимок пишется, когда в журнале набралось столько записей после предыдущего снимка...
+     */
+    private long minRecords = 100_000;
+
+    /**
+     * ...или прошло столько времени, если после предыдущего снимка была хоть одна запись.
+     */
+    private Duration interval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,92 @@
+package com.javatechie.webflux.config;
+
+import com.javatechie.webflux.cache.CustomerResponseCache;
+import com.javatechie.webflux.codec.CustomerEncoders;
+import com.javatechie.webflux.codec.PreEncodedCustomers;
+import com.javatechie.webflux.controller.CustomerController;
+import com.javatechie.webflux.dao.CustomerDao;
+import com.javatechie.webflux.dao.CustomerLog;
+import com.javatechie.webflux.dao.CustomerNameIndex;
+import com.javatechie.webflux.dao.CustomerSnapshots;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.handler.CustomerHandler;
+import com.javatechie.webflux.handler.CustomerStreamHandler;
+import com.javatechie.webflux.metrics.StreamMetrics;
+import com.javatechie.webflux.ratelimit.RateLimitWebFilter;
+import com.javatechie.webflux.ratelimit.RateLimiter;
+import com.javatechie.webflux.router.RouterConfig;
+import com.javatechie.webflux.service.CustomerService;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Функциональная регистрация бинов приложения: классы перечислены явно, поэтому при старте
+ * не нужно сканировать classpath в поисках @Component и @ConfigurationProperties.
+ * Автоконфигурация Spring Boot остаётся. Зависимости по-прежнему внедряются через @Autowired,
+ * а @Configuration-классы разбираются как обычно, со своими @Bean-методами.
+ * <p>
+ * Новый бин нужно добавить и сюда, иначе в этом режиме его не будет (проверяет FunctionalBeansTest).
+ */
+public class FunctionalBeans implements ApplicationContextInitializer<GenericApplicationContext> {
+
+    public static final List<Class<?>> PROPERTIES = Arrays.asList(
+            BlockingSchedulerProperties.class,
+            BulkIngestProperties.class,
+            CustomerCacheProperties.class,
+            CustomerEncodingProperties.class,
+            CustomerLogProperties.class,
+            CustomerMultiGetProperties.class,
+            CustomerPageProperties.class,
+            CustomerSearchProperties.class,
+            CustomerSnapshotProperties.class,
+            NettyServerProperties.class,
+            RateLimitProperties.class,
+            StartupProperties.class,
+            StreamHubProperties.class);
+
+    public static final List<Class<?>> COMPONENTS = Arrays.asList(
+            CodecConfig.class,
+            NettyServerConfig.class,
+            SchedulerConfig.class,
+            StreamHubConfig.class,
+            CustomerEncoders.class,
+            PreEncodedCustomers.class,
+            CustomerSnapshots.class,
+            CustomerStore.class,
+            CustomerLog.class,
+            CustomerNameIndex.class,
+            CustomerDao.class,
+            CustomerResponseCache.class,
+            StreamMetrics.class,
+            RateLimiter.class,
+            RateLimitWebFilter.class,
+            CustomerService.class,
+            CustomerHandler.class,
+            CustomerStreamHandler.class,
+            RouterConfig.class,
+            CustomerController.class);
+
+    @Override
+    public void initialize(GenericApplicationContext context) {
+        for (Class<?> type : PROPERTIES) {
+            context.registerBean(type);
+        }
+        for (Class<?> type : COMPONENTS) {
+            context.registerBean(type);
+        }
+        if (context.getEnvironment().getProperty("customer.startup.training-run", Boolean.class, false)) {
+            context.registerBean(StartupTrainingRun.class);
+        }
+    }
+
+    /**
+     * Основной источник в функциональном режиме: только автоконфигурация, без @ComponentScan.
+     */
+    @EnableAutoConfiguration
+    public static class Application {
+    }
+}
@@ -0,0 +1,59 @@
+package com.javatechie.webflux.config;
+
+import com.javatechie.webflux.netty.KeepAliveLimitHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+@Configuration
+@Slf4j
+public class NettyServerConfig {
+
+    @Autowired
+    private NettyServerProperties properties;
+
+    /**
+     * Собственные потоки event loop сервера, отдельно от общих ресурсов Reactor Netty, которыми
+     * пользуется WebClient.
+     */
+    @Bean(destroyMethod = "dispose")
+    public LoopResources serverLoopResources() {
+        return LoopResources.create("http-server", properties.getEventLoopThreads(), true);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerCustomizer(LoopResources serverLoopResources) {
+        boolean nativeTransport = properties.isNativeTransport() && LoopResources.hasNativeSupport();
+        log.info("HTTP server: {} event loop threads, {} transport", properties.getEventLoopThreads(),
+                nativeTransport ? "native" : "NIO");
+        return factory -> factory.addServerCustomizers(server -> customize(server, serverLoopResources, nativeTransport));
+    }
+
+    private HttpServer customize(HttpServer server, LoopResources loops, boolean nativeTransport) {
+        HttpServer customized = server
+                .runOn(loops, nativeTransport)
+                .option(ChannelOption.SO_BACKLOG, properties.getSoBacklog())
+                .childOption(ChannelOption.TCP_NODELAY, properties.isTcpNoDelay())
+                .idleTimeout(properties.getIdleTimeout())
+                .httpRequestDecoder(spec -> spec.maxHeaderSize((int) properties.getMaxHeaderSize().toBytes()));
+        int maxKeepAliveRequests = properties.getMaxKeepAliveRequests();
+        if (maxKeepAliveRequests <= 0) {
+            return customized;
+        }
+        return customized.doOnChannelInit((observer, channel, remoteAddress) -> {
+            ChannelPipeline pipeline = channel.pipeline();
+            if (pipeline.get(NettyPipeline.HttpCodec) != null) {
+                pipeline.addAfter(NettyPipeline.HttpCodec, KeepAliveLimitHandler.NAME,
+                        new KeepAliveLimitHandler(maxKeepAliveRequests));
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * Настройки HTTP-сервера Reactor Netty.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.netty")
+public class NettyServerProperties {
+
+    /**
+     * Число потоков event loop. По умолчанию как у Reactor Netty: по числу ядер, но не меньше 4.
+     */
+    private int eventLoopThreads = LoopResources.DEFAULT_IO_WORKER_COUNT;
+
+    /**
+     * Использовать нативный транспорт (epoll на Linux, kqueue на macOS), если он есть в classpath и
+     * поддерживается системой; иначе NIO.
+     */
+    private boolean nativeTransport = true;
+
+    /**
+     * Длина очереди входящих соединений, ещё не принятых сервером (SO_BACKLOG).
+     */
+    private int soBacklog = 1024;
+
+    private boolean tcpNoDelay = true;
+
+    /**
+     * Сколько соединение может простаивать между запросами, прежде чем сервер его закроет.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Сколько запросов можно отправить по одному keep-alive соединению; на последний сервер отвечает
+     * с Connection: close. 0 - без ограничения.
+     */
+    private int maxKeepAliveRequests = 0;
+
+    /**
+     * Максимальный суммарный размер заголовков запроса; запрос с заголовками больше отклоняется.
+     */
+    private DataSize maxHeaderSize = DataSize.ofKilobytes(8);
+}
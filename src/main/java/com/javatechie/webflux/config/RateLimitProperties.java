@@ -0,0 +1,84 @@
+package com.javatechie.webflux.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ограничение частоты запросов (token bucket) для маршрутов роутера и контроллера.
+ * <p>
+ * Лимиты задаются по имени маршрута, например customer.rate-limit.routes.router-customers.client-rate=50;
+ * поля, не заданные для маршрута (и маршруты без своей записи), берутся из customer.rate-limit.defaults.
+ * Нулевой rate - без ограничения.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Заголовок с идентификатором клиента. Не задан - клиент определяется по IP-адресу.
+     */
+    private String clientHeader;
+
+    /**
+     * Сколько клиентских корзин хранится одновременно; давно не приходившие клиенты вытесняются.
+     */
+    private long maxClients = 100_000;
+
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * На сколько независимых частей делится общий лимит маршрута, чтобы потоки event loop
+     * не конкурировали за один счётчик.
+     */
+    private int globalStripes = 8;
+
+    private Limit defaults = new Limit(0.0, 1, 0.0, 1);
+
+    private Map<String, Limit> routes = new HashMap<>();
+
+    /**
+     * Лимит маршрута, в котором каждое незаданное поле взято из defaults.
+     */
+    public Limit limitFor(String route) {
+        Limit limit = routes.get(route);
+        if (limit == null) {
+            return defaults;
+        }
+        return new Limit(
+                limit.getClientRate() != null ? limit.getClientRate() : defaults.getClientRate(),
+                limit.getClientBurst() != null ? limit.getClientBurst() : defaults.getClientBurst(),
+                limit.getGlobalRate() != null ? limit.getGlobalRate() : defaults.getGlobalRate(),
+                limit.getGlobalBurst() != null ? limit.getGlobalBurst() : defaults.getGlobalBurst());
+    }
+
+    /**
+     * null - поле не задано, берётся из defaults.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Запросов в секунду на одного клиента.
+         */
+        private Double clientRate;
+
+        private Integer clientBurst;
+
+        /**
+         * Запросов в секунду на маршрут от всех клиентов вместе.
+         */
+        private Double globalRate;
+
+        private Integer globalBurst;
+    }
+}
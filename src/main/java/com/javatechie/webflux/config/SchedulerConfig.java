@@ -0,0 +1,26 @@
+package com.javatechie.webflux.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+
+@Slf4j
+@Configuration
+public class SchedulerConfig {
+
+    @Autowired
+    private BlockingSchedulerProperties properties;
+
+    /**
+     * Отдельный планировщик для блокирующих вызовов, чтобы они не занимали потоки event loop Netty:
+     * виртуальные потоки, если JVM их поддерживает, иначе ограниченный пул.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler() {
+        Scheduler scheduler = BlockingSchedulers.create(properties, "blocking");
+        log.info("Blocking calls scheduler: {}", scheduler);
+        return scheduler;
+    }
+}
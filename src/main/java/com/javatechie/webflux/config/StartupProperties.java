@@ -0,0 +1,35 @@
+package com.javatechie.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Настройки режимов старта приложения.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.startup")
+public class StartupProperties {
+
+    /**
+     * Регистрировать бины приложения функционально ({@link FunctionalBeans}) вместо сканирования classpath.
+     * Режим выбирается до загрузки application.properties, поэтому задаётся только аргументом,
+     * системным свойством или переменной окружения CUSTOMER_STARTUP_FUNCTIONAL_BEANS.
+     */
+    private boolean functionalBeans = false;
+
+    /**
+     * Тренировочный прогон для AppCDS: после старта приложение само делает запросы из training-paths
+     * (чтобы загрузились классы обработки запросов) и завершается.
+     */
+    private boolean trainingRun = false;
+
+    private List<String> trainingPaths = Arrays.asList(
+            "/router/customer/1",
+            "/router/customers",
+            "/router/customers?ids=1-10",
+            "/router/customers/search?q=customer1",
+            "/customers");
+}
@@ -0,0 +1,43 @@
+package com.javatechie.webflux.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Тренировочный прогон для AppCDS (профиль appcds): запускается с -XX:DumpLoadedClassList, прогоняет
+ * по разу запросы из customer.startup.training-paths и завершает JVM. Список загруженных классов
+ * потом упаковывается в архив, с которым приложение стартует быстрее.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.startup", name = "training-run", havingValue = "true")
+public class StartupTrainingRun {
+
+    @Autowired
+    private StartupProperties properties;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        WebClient client = WebClient.create("http://localhost:" + port);
+        Flux.fromIterable(properties.getTrainingPaths())
+                .concatMap(path -> client.get().uri(path).exchangeToMono(response -> response.releaseBody()
+                        .doOnSuccess(ignored -> log.info("Training request {} -> {}", path, response.rawStatusCode()))))
+                .then()
+                .block(Duration.ofMinutes(1));
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,76 @@
+package com.javatechie.webflux.config;
+
+import com.javatechie.webflux.dao.CustomerDao;
+import com.javatechie.webflux.dao.CustomerLog;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerChange;
+import com.javatechie.webflux.service.CustomerChangeFeed;
+import com.javatechie.webflux.service.SlowConsumerGuard;
+import com.javatechie.webflux.service.StreamHub;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToIntFunction;
+
+@Configuration
+public class StreamHubConfig {
+
+    @Autowired
+    private StreamHubProperties properties;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Bean
+    public StreamHub<Customer> customerStreamHub(CustomerDao dao) {
+        StreamHub<Customer> hub = new StreamHub<>("customers-stream", dao::getCustomersStream,
+                properties.isHubEnabled(), properties.getReplay(), this::customerGuard);
+        Gauge.builder("customer.stream.subscribers", hub, StreamHub::subscribers)
+                .tag("stream", "customers-stream")
+                .register(registry);
+        return hub;
+    }
+
+    /**
+     * Лента подключается к хранилищу, когда журнал уже проигран: восстановление после перезапуска
+     * - не изменения, и публиковать его подписчикам незачем.
+     */
+    @Bean
+    public CustomerChangeFeed customerChangeFeed(CustomerStore store, CustomerLog customerLog) {
+        CustomerChangeFeed feed = new CustomerChangeFeed(properties.getChangeBuffer(), this::changeGuard);
+        customerLog.replayed().thenRun(() -> store.addListener(feed));
+        Gauge.builder("customer.stream.subscribers", feed, CustomerChangeFeed::subscribers)
+                .tag("stream", "customer-changes")
+                .register(registry);
+        return feed;
+    }
+
+    private SlowConsumerGuard<Customer> customerGuard(String route) {
+        return guard(route, StreamHubConfig::estimateSize);
+    }
+
+    private SlowConsumerGuard<CustomerChange> changeGuard(String route) {
+        return guard(route, change -> 32 + (change.getCustomer() == null ? 0 : estimateSize(change.getCustomer())));
+    }
+
+    private <T> SlowConsumerGuard<T> guard(String route, ToIntFunction<T> sizeEstimator) {
+        StreamHubProperties.SlowConsumer settings = properties.forRoute(route);
+        return new SlowConsumerGuard<>(route, settings.getPolicy(), settings.getBufferSize(),
+                settings.getMaxBufferSize().toBytes(), sizeEstimator,
+                Counter.builder("customer.stream.dropped").tag("route", route).register(registry),
+                Counter.builder("customer.stream.slow-consumers.disconnected").tag("route", route).register(registry));
+    }
+
+    /**
+     * Примерный размер клиента в куче: объект, строка и её массив символов.
+     */
+    private static int estimateSize(Customer customer) {
+        String name = customer.getName();
+        return 64 + (name == null ? 0 : name.length() * 2);
+    }
+}
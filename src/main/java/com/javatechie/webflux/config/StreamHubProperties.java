@@ -0,0 +1,62 @@
+package com.javatechie.webflux.config;
+
+import com.javatechie.webflux.service.SlowConsumerPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки общего (multicast) источника для SSE-потоков клиентов.
+ */
+@Data
+@ConfigurationProperties(prefix = "customer.stream")
+public class StreamHubProperties {
+
+    /**
+     * Если выключено, каждый подписчик получает собственный конвейер, как раньше.
+     */
+    private boolean hubEnabled = true;
+
+    /**
+     * Сколько последних событий получает подписчик, подключившийся к уже идущему потоку.
+     */
+    private int replay = 10;
+
+    /**
+     * Сколько последних изменений клиентов хранится для подписчиков, переподключившихся с Last-Event-ID.
+     */
+    private int changeBuffer = 1024;
+
+    /**
+     * Буфер подписчика для маршрутов, не перечисленных в routes.
+     */
+    private SlowConsumer defaults = new SlowConsumer();
+
+    /**
+     * Буфер подписчика по имени маршрута (например, router-customers-stream).
+     */
+    private Map<String, SlowConsumer> routes = new HashMap<>();
+
+    public SlowConsumer forRoute(String route) {
+        return routes.getOrDefault(route, defaults);
+    }
+
+    @Data
+    public static class SlowConsumer {
+
+        private SlowConsumerPolicy policy = SlowConsumerPolicy.BUFFER_THEN_DISCONNECT;
+
+        /**
+         * Сколько событий может ждать отправки одному подписчику.
+         */
+        private int bufferSize = 256;
+
+        /**
+         * Примерный предел памяти под эти события на одно соединение.
+         */
+        private DataSize maxBufferSize = DataSize.ofKilobytes(256);
+    }
+}
@@ -1,6 +1,7 @@
 package com.javatechie.webflux.controller;
 
 import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.metrics.StreamMetrics;
 import com.javatechie.webflux.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -17,14 +19,17 @@ public class CustomerController {
     @Autowired
     private CustomerService service;
 
+    @Autowired
+    private StreamMetrics streamMetrics;
+
 
     @GetMapping
-    public List<Customer> getAllCustomers() {
+    public Mono<List<Customer>> getAllCustomers() {
         return service.loadAllCustomers();
     }
 
     @GetMapping(value = "/stream",produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<Customer> getAllCustomersStream() {
-        return service.loadAllCustomersStream();
+        return streamMetrics.instrument("/customers/stream", service.loadAllCustomersStream());
     }
 }
@@ -1,21 +1,43 @@
 package com.javatechie.webflux.dao;
 
 import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerBatch;
+import com.javatechie.webflux.dto.CustomerPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Component
 public class CustomerDao {
 
+    @Autowired
+    private CustomerStore store;
 
-    private static void sleepExecution(int i){
+    @Autowired
+    private CustomerLog customerLog;
+
+    @Autowired
+    private CustomerNameIndex nameIndex;
+
+    @Value("${customer.dao.simulated-latency-ms:1000}")
+    private long simulatedLatencyMs;
+
+    private void sleepExecution(int i){
         try {
-            Thread.sleep(1000);
+            Thread.sleep(simulatedLatencyMs);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -23,7 +45,7 @@ public class CustomerDao {
 
     public List<Customer> getCustomers()  {
         return IntStream.rangeClosed(1, 10)
-                .peek(CustomerDao::sleepExecution)
+                .peek(this::sleepExecution)
                 .peek(i -> System.out.println("processing count : " + i))
                 .mapToObj(i -> new Customer(i, "customer" + i))
                 .collect(Collectors.toList());
@@ -40,9 +62,86 @@ public class CustomerDao {
 
 
     public Flux<Customer> getCustomerList()  {
-        return Flux.range(1,50)
-                .doOnNext(i -> System.out.println("processing count in stream flow : " + i))
-                .map(i -> new Customer(i, "customer" + i))
-                .log();
+        return store.findAll();
+    }
+
+
+    public CustomerPage findPage(long afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(limit);
+        Iterator<Customer> iterator = store.ordered(afterId).iterator();
+        while (customers.size() < limit && iterator.hasNext()) {
+            customers.add(iterator.next());
+        }
+        return new CustomerPage(customers, iterator.hasNext());
+    }
+
+
+    /**
+     * Сначала клиенты, чьё имя начинается с query, затем те, у кого query встречается внутри имени.
+     */
+    public Flux<Customer> search(String query, int limit) {
+        return Flux.fromIterable(nameIndex.startingWith(query))
+                .concatWith(Flux.defer(() -> Flux.fromIterable(nameIndex.containingNotStartingWith(query))))
+                .take(limit);
+    }
+
+
+    /**
+     * Клиенты по списку id за один проход по нему: в порядке запроса (повторы отбрасываются)
+     * или по возрастанию id, как их хранит store.
+     */
+    public CustomerBatch findAllById(int[] ids, boolean idOrder) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        List<Customer> customers = new ArrayList<>(distinct);
+        int[] missing = new int[distinct];
+        int missingCount = 0;
+        if (idOrder) {
+            for (int i = 0; i < distinct; i++) {
+                Customer customer = store.get(sorted[i]);
+                if (customer != null) {
+                    customers.add(customer);
+                } else {
+                    missing[missingCount++] = sorted[i];
+                }
+            }
+        } else {
+            Set<Integer> seen = distinct < ids.length ? new HashSet<>() : null;
+            for (int id : ids) {
+                if (seen != null && !seen.add(id)) {
+                    continue;
+                }
+                Customer customer = store.get(id);
+                if (customer != null) {
+                    customers.add(customer);
+                } else {
+                    missing[missingCount++] = id;
+                }
+            }
+            Arrays.sort(missing, 0, missingCount);
+        }
+        return new CustomerBatch(customers, Arrays.copyOf(missing, missingCount));
+    }
+
+
+    public Mono<Customer> findById(int id) {
+        return Mono.justOrEmpty(store.get(id));
+    }
+
+
+    public Mono<Customer> save(Customer customer) {
+        return customerLog.append(Collections.singletonList(customer))
+                .thenReturn(customer);
+    }
+
+
+    public Mono<Void> saveAll(List<Customer> customers) {
+        return customerLog.append(customers);
     }
 }
@@ -0,0 +1,604 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.config.CustomerLogProperties;
+import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.exception.ClientException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал сохранений клиентов: append-only файл, в который пишет один поток.
+ * <p>
+ * Сохранения из разных запросов складываются в очередь, поток-писатель забирает их пачкой,
+ * пишет в FileChannel и делает один fsync на всю пачку (group commit). После fsync записи
+ * применяются к {@link CustomerStore} и только потом запросы получают ответ.
+ * <p>
+ * Формат записи: [int длина payload][int crc32 payload][payload: int id, byte есть ли имя, имя в UTF-8].
+ * При старте журнал проигрывается в хранилище, повреждённый хвост (например, после падения
+ * посреди записи) отрезается.
+ * <p>
+ * Когда журнал сильно больше живых данных, отдельный поток пишет компактную копию текущего
+ * содержимого хранилища, а писатель дописывает в неё хвост журнала и атомарно подменяет файл.
+ * <p>
+ * Со снимками ({@link CustomerSnapshots}) компактирования нет: писатель время от времени пишет в журнал
+ * маркер с номером снимка, отдельный поток сохраняет снимок хранилища, и журнал обрезается до маркера.
+ * При старте хранилище уже поднято из снимка и сразу отдаёт клиентов, а хвост журнала после маркера
+ * догоняется в фоне ({@link #replayed()}); новые сохранения ждут, пока он не проиграется.
+ */
+@Slf4j
+@Component
+public class CustomerLog {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+    private static final byte TYPE_NULL_NAME = 0;
+    private static final byte TYPE_NAME = 1;
+    /**
+     * Маркер снимка: payload [int 0][byte 2][long номер снимка].
+     */
+    private static final byte TYPE_SNAPSHOT_MARKER = 2;
+    private static final int MARKER_LENGTH = 13;
+
+    @Autowired
+    private CustomerLogProperties properties;
+
+    @Autowired
+    private CustomerStore store;
+
+    @Autowired
+    private CustomerSnapshots snapshots;
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private Path path;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private long records;
+
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean compacting;
+    private volatile Compaction compacted;
+
+    private long recordsSinceSnapshot;
+    private long applied;
+    private long markersSeen;
+    private long lastSnapshotSequence;
+    private long lastSnapshotAt;
+    private volatile boolean snapshotting;
+    private volatile SnapshotWritten snapshotWritten;
+    private final CompletableFuture<Void> replayed = new CompletableFuture<>();
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            replayed.complete(null);
+            return;
+        }
+        path = Paths.get(properties.getPath()).toAbsolutePath();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long snapshotSequence = store.snapshotSequence();
+        lastSnapshotSequence = Math.max(0, snapshotSequence);
+        lastSnapshotAt = System.currentTimeMillis();
+
+        running = true;
+        if (snapshotSequence < 0) {
+            replayTail(snapshotSequence);
+            writer = new Thread(this::writeLoop, "customer-log-writer");
+        } else {
+            writer = new Thread(() -> {
+                if (replayInBackground(snapshotSequence)) {
+                    writeLoop();
+                }
+            }, "customer-log-writer");
+        }
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Завершается, когда хранилище догнало журнал. Без снимка - уже к концу старта.
+     */
+    public CompletableFuture<Void> replayed() {
+        return replayed;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        channel.close();
+        //записи, поставленные в очередь после последней проверки писателя, уже никто не запишет
+        failPending();
+    }
+
+    /**
+     * Сохраняет клиентов в журнал. Mono завершается, когда записи на диске и уже видны в хранилище.
+     */
+    public Mono<Void> append(List<Customer> customers) {
+        if (!properties.isEnabled()) {
+            return Mono.fromRunnable(() -> customers.forEach(store::put));
+        }
+        return Mono.defer(() -> {
+            for (Customer customer : customers) {
+                if (customer.getName() != null && customer.getName().length() * 3 + 5 > MAX_PAYLOAD_SIZE) {
+                    return Mono.error(new ClientException("Customer " + customer.getId() + " name is too long"));
+                }
+            }
+            if (!running) {
+                return Mono.error(new IllegalStateException("Customer log is closed"));
+            }
+            PendingWrite write = new PendingWrite(customers);
+            queue.add(write);
+            if (!running) {
+                //close() мог уже разобрать очередь
+                failPending();
+            }
+            return Mono.fromFuture(write.done);
+        });
+    }
+
+    private void failPending() {
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.done.completeExceptionally(new IllegalStateException("Customer log is closed"));
+        }
+    }
+
+    private boolean replayInBackground(long snapshotSequence) {
+        try {
+            replayTail(snapshotSequence);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Customer log replay failed, saves are rejected", e);
+            running = false;
+            replayed.completeExceptionally(e);
+            PendingWrite write;
+            while ((write = queue.poll()) != null) {
+                write.done.completeExceptionally(e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Проигрывает журнал в хранилище; если хранилище поднято из снимка, то только записи после его маркера.
+     */
+    private void replayTail(long snapshotSequence) throws IOException {
+        long start = System.currentTimeMillis();
+        long valid = replay(snapshotSequence);
+        if (snapshotSequence >= 0 && markersSeen == 0 && records > 0) {
+            // журнал начат заново после снимка (маркеров нет), все его записи новее снимка
+            log.warn("{} has no snapshot markers, replaying it on top of snapshot {}", path, snapshotSequence);
+            valid = replay(-1);
+        }
+        if (valid < channel.size()) {
+            log.warn("Truncating corrupted tail of {} at {} ({} bytes dropped)", path, valid, channel.size() - valid);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        log.info("Replayed {} records from {} in {} ms", applied, path, System.currentTimeMillis() - start);
+        replayed.complete(null);
+    }
+
+    private long replay(long snapshotSequence) throws IOException {
+        long valid = 0;
+        records = 0;
+        recordsSinceSnapshot = 0;
+        applied = 0;
+        markersSeen = 0;
+        boolean skipping = snapshotSequence >= 0;
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        byte[] payload = new byte[256];
+        try {
+            while (true) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 5 || length > MAX_PAYLOAD_SIZE) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (payload[4] == TYPE_SNAPSHOT_MARKER) {
+                    long sequence = ByteBuffer.wrap(payload, 5, 8).getLong();
+                    markersSeen++;
+                    lastSnapshotSequence = Math.max(lastSnapshotSequence, sequence);
+                    if (skipping && sequence > snapshotSequence) {
+                        throw new IllegalStateException(path + " starts at snapshot " + sequence
+                                + " but the newest usable snapshot is " + snapshotSequence);
+                    }
+                    skipping = skipping && sequence != snapshotSequence;
+                    recordsSinceSnapshot = 0;
+                } else if (!skipping) {
+                    store.put(decode(payload, length));
+                    recordsSinceSnapshot++;
+                    applied++;
+                }
+                valid += HEADER_SIZE + length;
+                records++;
+            }
+        } catch (EOFException e) {
+            // нормальный конец файла или оборванная последняя запись
+        }
+        return valid;
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Compaction ready = compacted;
+                if (ready != null) {
+                    compacted = null;
+                    finishCompaction(ready);
+                }
+                SnapshotWritten written = snapshotWritten;
+                if (written != null) {
+                    snapshotWritten = null;
+                    finishSnapshot(written);
+                }
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    maybeSnapshot();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                commit(batch);
+                if (snapshots.isEnabled()) {
+                    maybeSnapshot();
+                } else {
+                    maybeCompact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Customer log write failed", e);
+                batch.forEach(write -> write.done.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) throws IOException {
+        buffer.clear();
+        int count = 0;
+        for (PendingWrite write : batch) {
+            for (Customer customer : write.customers) {
+                encode(customer);
+                count++;
+            }
+        }
+        buffer.flip();
+        writeBuffer();
+        records += count;
+        recordsSinceSnapshot += count;
+
+        for (PendingWrite write : batch) {
+            write.customers.forEach(store::put);
+        }
+        for (PendingWrite write : batch) {
+            write.done.complete(null);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // не оставляем в журнале половину пачки, иначе следующие записи не проиграются
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+    }
+
+    private void encode(Customer customer) {
+        byte[] name = customer.getName() == null ? null : customer.getName().getBytes(StandardCharsets.UTF_8);
+        int length = 5 + (name == null ? 0 : name.length);
+        ensureCapacity(HEADER_SIZE + length);
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putInt(customer.getId());
+        buffer.put(name == null ? TYPE_NULL_NAME : TYPE_NAME);
+        if (name != null) {
+            buffer.put(name);
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + length);
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void encodeMarker(long sequence) {
+        ensureCapacity(HEADER_SIZE + MARKER_LENGTH);
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putInt(0).put(TYPE_SNAPSHOT_MARKER).putLong(sequence);
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + MARKER_LENGTH);
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(start, MARKER_LENGTH);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static Customer decode(byte[] payload, int length) {
+        ByteBuffer in = ByteBuffer.wrap(payload, 0, length);
+        int id = in.getInt();
+        String name = in.get() == TYPE_NULL_NAME ? null : new String(payload, 5, length - 5, StandardCharsets.UTF_8);
+        return new Customer(id, name);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes) {
+            capacity <<= 1;
+        }
+        ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    /**
+     * Пишет маркер следующего снимка и отдаёт запись снимка отдельному потоку. Хранилище к этому моменту
+     * содержит все записи до маркера; более свежие, попавшие в снимок, при старте перепишутся хвостом журнала.
+     */
+    private void maybeSnapshot() throws IOException {
+        if (!snapshots.isEnabled() || snapshotting || recordsSinceSnapshot == 0) {
+            return;
+        }
+        if (recordsSinceSnapshot < snapshots.getProperties().getMinRecords()
+                && System.currentTimeMillis() - lastSnapshotAt < snapshots.getProperties().getInterval().toMillis()) {
+            return;
+        }
+        long sequence = lastSnapshotSequence + 1;
+        long markerPosition = channel.position();
+        buffer.clear();
+        encodeMarker(sequence);
+        buffer.flip();
+        writeBuffer();
+        records++;
+        recordsSinceSnapshot = 0;
+        lastSnapshotSequence = sequence;
+        lastSnapshotAt = System.currentTimeMillis();
+        snapshotting = true;
+        Thread snapshotWriter = new Thread(() -> writeSnapshot(sequence, markerPosition), "customer-snapshot-writer");
+        snapshotWriter.setDaemon(true);
+        snapshotWriter.start();
+    }
+
+    private void writeSnapshot(long sequence, long markerPosition) {
+        try {
+            snapshots.write(sequence, store.ordered(Long.MIN_VALUE));
+            snapshotWritten = new SnapshotWritten(sequence, markerPosition);
+        } catch (IOException | RuntimeException e) {
+            log.error("Customer snapshot " + sequence + " failed", e);
+            snapshotting = false;
+        }
+    }
+
+    /**
+     * Выполняется потоком-писателем: снимок на диске, поэтому журнал до его маркера больше не нужен.
+     */
+    private void finishSnapshot(SnapshotWritten written) throws IOException {
+        try {
+            Path target = path.resolveSibling(path.getFileName() + ".tail");
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = written.markerPosition;
+                long end = channel.size();
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+                out.force(false);
+            }
+            replaceLog(target);
+            long before = records;
+            records = countRecords(0);
+            log.info("Truncated {} to snapshot {} marker: {} records -> {}", path, written.sequence, before, records);
+            snapshots.deleteOlderThan(written.sequence);
+        } finally {
+            snapshotting = false;
+        }
+    }
+
+    private void maybeCompact() throws IOException {
+        if (compacting || records < properties.getCompactionMinRecords()
+                || records < store.size() * properties.getCompactionRatio()) {
+            return;
+        }
+        compacting = true;
+        long position = channel.position();
+        Path target = path.resolveSibling(path.getFileName() + ".compact");
+        Thread compactor = new Thread(() -> compact(target, position), "customer-log-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    /**
+     * Пишет содержимое хранилища в новый файл. Хранилище к этому моменту содержит все записи журнала
+     * до position; более свежие записи, попавшие в копию, будут перезаписаны хвостом журнала.
+     */
+    private void compact(Path target, long position) {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16);
+            CRC32 crc = new CRC32();
+            long count = 0;
+            for (Customer customer : store.scan()) {
+                byte[] name = customer.getName() == null ? null : customer.getName().getBytes(StandardCharsets.UTF_8);
+                int length = 5 + (name == null ? 0 : name.length);
+                if (chunk.remaining() < HEADER_SIZE + length) {
+                    chunk.flip();
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    chunk.clear();
+                    if (chunk.capacity() < HEADER_SIZE + length) {
+                        chunk = ByteBuffer.allocateDirect(HEADER_SIZE + length);
+                    }
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                payload.putInt(customer.getId());
+                payload.put((byte) (name == null ? 0 : 1));
+                if (name != null) {
+                    payload.put(name);
+                }
+                crc.reset();
+                crc.update(payload.array(), 0, length);
+                chunk.putInt(length).putInt((int) crc.getValue()).put(payload.array());
+                count++;
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                out.write(chunk);
+            }
+            out.force(false);
+            compacted = new Compaction(target, position, count);
+        } catch (IOException e) {
+            log.error("Customer log compaction failed", e);
+            compacting = false;
+        }
+    }
+
+    /**
+     * Выполняется потоком-писателем: дописывает хвост журнала после position и подменяет файл.
+     */
+    private void finishCompaction(Compaction compaction) throws IOException {
+        try {
+            long tailRecords = countRecords(compaction.position);
+            try (FileChannel out = FileChannel.open(compaction.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long position = compaction.position;
+                long end = channel.size();
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+                out.force(false);
+            }
+            replaceLog(compaction.file);
+            log.info("Compacted {}: {} records -> {}", path, records, compaction.records + tailRecords);
+            records = compaction.records + tailRecords;
+        } finally {
+            compacting = false;
+        }
+    }
+
+    /**
+     * Подменяет журнал готовым файлом: сначала атомарный rename (поверх открытого файла на POSIX можно),
+     * потом переоткрытие. Если rename не удался, журнал остаётся открытым и записи идут в старый файл.
+     */
+    private void replaceLog(Path replacement) throws IOException {
+        try {
+            Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(replacement);
+            throw e;
+        }
+        FileChannel previous = channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } finally {
+            previous.close();
+        }
+    }
+
+    private long countRecords(long from) throws IOException {
+        long count = 0;
+        long position = from;
+        long end = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (position < end) {
+            header.clear();
+            channel.read(header, position);
+            position += HEADER_SIZE + header.getInt(0);
+            count++;
+        }
+        return count;
+    }
+
+    private static final class PendingWrite {
+        final List<Customer> customers;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingWrite(List<Customer> customers) {
+            this.customers = customers;
+        }
+    }
+
+    private static final class SnapshotWritten {
+        final long sequence;
+        final long markerPosition;
+
+        SnapshotWritten(long sequence, long markerPosition) {
+            this.sequence = sequence;
+            this.markerPosition = markerPosition;
+        }
+    }
+
+    private static final class Compaction {
+        final Path file;
+        final long position;
+        final long records;
+
+        Compaction(Path file, long position, long records) {
+            this.file = file;
+            this.position = position;
+            this.records = records;
+        }
+    }
+}
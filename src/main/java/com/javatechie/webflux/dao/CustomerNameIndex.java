@@ -0,0 +1,213 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.dto.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индексы по имени клиента (без учёта регистра), обновляются при каждом сохранении.
+ * <p>
+ * Префиксный индекс ({@link SortedNameIndex}) - поиск по префиксу за O(log n) плюс O(1) на результат.
+ * Триграммный индекс - для каждой тройки символов список id ({@link IntPostings}); поиск подстроки
+ * обходит самый короткий из списков её триграмм и проверяет имя. При переименовании старые записи
+ * не удаляются, устаревшие id отсеиваются этой проверкой.
+ * <p>
+ * При старте индексы строятся сразу из всего хранилища, дальше обновляются по одному клиенту.
+ */
+@Component
+public class CustomerNameIndex implements CustomerStoreListener {
+
+    private static final int GRAM = 3;
+
+    @Autowired
+    private CustomerStore store;
+
+    private volatile SortedNameIndex names;
+    private final Map<Long, IntPostings> trigrams = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        store.addListener(this, this::build);
+    }
+
+    @Override
+    public void customerSaved(Customer previous, Customer current) {
+        String oldName = previous == null ? null : normalize(previous.getName());
+        String newName = normalize(current.getName());
+        if (newName == null || newName.equals(oldName)) {
+            return;
+        }
+        names.add(newName, current.getId());
+        for (int i = 0; i + GRAM <= newName.length(); i++) {
+            if (oldName == null || !oldName.contains(newName.substring(i, i + GRAM))) {
+                trigrams.computeIfAbsent(trigram(newName, i), key -> new IntPostings()).add(current.getId());
+            }
+        }
+    }
+
+    /**
+     * Клиенты, чьё имя начинается с prefix, по возрастанию имени.
+     */
+    public Iterable<Customer> startingWith(String prefix) {
+        String normalized = normalize(prefix);
+        return () -> new CustomerIterator(names.startingWith(normalized)) {
+            @Override
+            boolean matches(String name) {
+                return name.startsWith(normalized);
+            }
+        };
+    }
+
+    /**
+     * Клиенты, чьё имя содержит text, но не начинается с него. Для text короче трёх символов
+     * триграмм нет - результат пустой, такие запросы идут только по префиксу.
+     */
+    public Iterable<Customer> containingNotStartingWith(String text) {
+        String normalized = normalize(text);
+        if (normalized.length() < GRAM) {
+            return Collections.emptyList();
+        }
+        IntPostings shortest = null;
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            IntPostings postings = trigrams.get(trigram(normalized, i));
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            if (shortest == null || postings.size() < shortest.size()) {
+                shortest = postings;
+            }
+        }
+        IntPostings candidates = shortest;
+        return () -> new CustomerIterator(candidates.iterator()) {
+            //после переименования туда и обратно id может встретиться в списке дважды
+            private final Set<Integer> returned = new HashSet<>();
+
+            @Override
+            boolean matches(String name) {
+                return name.contains(normalized) && !name.startsWith(normalized);
+            }
+
+            @Override
+            boolean accept(Customer customer) {
+                return returned.add(customer.getId());
+            }
+        };
+    }
+
+    private void build(Iterable<Customer> customers) {
+        int capacity = store.size();
+        String[] allNames = new String[capacity];
+        int[] allIds = new int[capacity];
+        int size = 0;
+        Map<Long, PostingsBuilder> postings = new HashMap<>();
+        for (Customer customer : customers) {
+            String name = normalize(customer.getName());
+            if (name == null) {
+                continue;
+            }
+            if (size == allNames.length) {
+                allNames = Arrays.copyOf(allNames, Math.max(16, size << 1));
+                allIds = Arrays.copyOf(allIds, allNames.length);
+            }
+            allNames[size] = name;
+            allIds[size] = customer.getId();
+            size++;
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                if (!repeatsEarlierTrigram(name, i)) {
+                    postings.computeIfAbsent(trigram(name, i), key -> new PostingsBuilder()).add(customer.getId());
+                }
+            }
+        }
+        postings.forEach((key, builder) -> trigrams.put(key, builder.build()));
+        names = SortedNameIndex.build(allNames, allIds, size, this::currentName);
+    }
+
+    private String currentName(int id) {
+        Customer customer = store.get(id);
+        return customer == null ? null : normalize(customer.getName());
+    }
+
+    private static boolean repeatsEarlierTrigram(String name, int from) {
+        for (int i = 0; i < from; i++) {
+            if (name.regionMatches(i, name, from, GRAM)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long trigram(String name, int from) {
+        return ((long) name.charAt(from) << 32) | ((long) name.charAt(from + 1) << 16) | name.charAt(from + 2);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class PostingsBuilder {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+            }
+            ids[size++] = id;
+        }
+
+        IntPostings build() {
+            Arrays.sort(ids, 0, size);
+            return new IntPostings(ids, size);
+        }
+    }
+
+    private abstract class CustomerIterator implements Iterator<Customer> {
+        private final PrimitiveIterator.OfInt ids;
+        private Customer next;
+
+        CustomerIterator(PrimitiveIterator.OfInt ids) {
+            this.ids = ids;
+        }
+
+        abstract boolean matches(String name);
+
+        boolean accept(Customer customer) {
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && ids.hasNext()) {
+                Customer customer = store.get(ids.nextInt());
+                if (customer != null && customer.getName() != null
+                        && matches(normalize(customer.getName())) && accept(customer)) {
+                    next = customer;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Customer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Customer current = next;
+            next = null;
+            return current;
+        }
+    }
+}
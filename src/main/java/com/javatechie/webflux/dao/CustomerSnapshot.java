@@ -0,0 +1,252 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.dto.Customer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * Снимок всех клиентов в компактном бинарном файле, открытый через memory map.
+ * <p>
+ * Формат: заголовок, затем колонки фиксированной ширины и упакованные имена:
+ * <pre>
+ * [int magic][int версия][long sequence][int count][int размер имён][int crc колонок][int crc имён]
+ * [int id * count, по возрастанию]
+ * [int смещение имени * (count + 1)]
+ * [битовая маска null-имён, (count + 7) / 8 байт]
+ * [имена в UTF-8 подряд]
+ * </pre>
+ * Поиск по id - бинарный поиск в колонке id. Клиент декодируется при первом чтении и дальше
+ * отдаётся тот же объект, так что кэши, сравнивающие клиентов по ссылке, продолжают работать.
+ * Файл целиком отображается одним буфером, поэтому снимок ограничен 2 ГБ.
+ */
+public class CustomerSnapshot {
+
+    private static final int MAGIC = 0x43534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final Path file;
+    private final long sequence;
+    private final int count;
+    private final IntBuffer ids;
+    private final IntBuffer offsets;
+    private final ByteBuffer nulls;
+    private final ByteBuffer names;
+    private final AtomicReferenceArray<Customer> decoded;
+
+    private CustomerSnapshot(Path file, MappedByteBuffer map) throws IOException {
+        this.file = file;
+        map.order(ByteOrder.BIG_ENDIAN);
+        if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException("Not a customer snapshot: " + file);
+        }
+        sequence = map.getLong(8);
+        count = map.getInt(16);
+        int namesSize = map.getInt(20);
+        if (count < 0 || count > (map.capacity() - HEADER_SIZE) / 8) {
+            throw new IOException("Snapshot " + file + " is truncated");
+        }
+        int idsStart = HEADER_SIZE;
+        int offsetsStart = idsStart + count * 4;
+        int nullsStart = offsetsStart + (count + 1) * 4;
+        int namesStart = nullsStart + (count + 7) / 8;
+        if (namesSize < 0 || (long) namesStart + namesSize != map.capacity()) {
+            throw new IOException("Snapshot " + file + " is truncated");
+        }
+        if (map.getInt(24) != crc(slice(map, idsStart, namesStart)) || map.getInt(28) != crc(slice(map, namesStart, map.capacity()))) {
+            throw new IOException("Snapshot " + file + " is corrupted: checksum mismatch");
+        }
+        ids = slice(map, idsStart, offsetsStart).asIntBuffer();
+        offsets = slice(map, offsetsStart, nullsStart).asIntBuffer();
+        nulls = slice(map, nullsStart, namesStart);
+        names = slice(map, namesStart, map.capacity());
+        decoded = new AtomicReferenceArray<>(count);
+    }
+
+    /**
+     * Отображает файл в память и проверяет контрольные суммы.
+     *
+     * @throws IOException если файл не снимок, обрезан или повреждён
+     */
+    public static CustomerSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2 GB");
+            }
+            return new CustomerSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Пишет клиентов (строго по возрастанию id) в file. Имена сначала пишутся во временный файл рядом,
+     * колонки копятся в памяти; готовый снимок появляется под своим именем атомарно, после fsync.
+     *
+     * @return число записанных клиентов
+     */
+    public static int write(Path file, long sequence, Iterable<Customer> ascending) throws IOException {
+        Path namesFile = file.resolveSibling(file.getFileName() + ".names");
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] ids = new int[1024];
+        int[] offsets = new int[1025];
+        BitSet nulls = new BitSet();
+        int count = 0;
+        long namesSize = 0;
+        CRC32 namesCrc = new CRC32();
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(namesFile), 1 << 16)) {
+                for (Customer customer : ascending) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count << 1);
+                        offsets = Arrays.copyOf(offsets, (count << 1) + 1);
+                    }
+                    if (count > 0 && customer.getId() <= ids[count - 1]) {
+                        throw new IllegalArgumentException("Customers must be in ascending id order");
+                    }
+                    ids[count] = customer.getId();
+                    offsets[count] = (int) namesSize;
+                    if (customer.getName() == null) {
+                        nulls.set(count);
+                    } else {
+                        byte[] name = customer.getName().getBytes(StandardCharsets.UTF_8);
+                        out.write(name);
+                        namesCrc.update(name);
+                        namesSize += name.length;
+                    }
+                    count++;
+                    if (HEADER_SIZE + count * 9L + namesSize > Integer.MAX_VALUE) {
+                        throw new IOException("Snapshot would be larger than 2 GB");
+                    }
+                }
+            }
+            offsets[count] = (int) namesSize;
+
+            ByteBuffer columns = ByteBuffer.allocate(count * 4 + (count + 1) * 4 + (count + 7) / 8);
+            columns.asIntBuffer().put(ids, 0, count).put(offsets, 0, count + 1);
+            columns.position(count * 4 + (count + 1) * 4);
+            byte[] nullBytes = nulls.toByteArray();
+            columns.put(nullBytes);
+            columns.position(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(count).putInt((int) namesSize)
+                    .putInt(crc(columns.duplicate())).putInt((int) namesCrc.getValue());
+            header.flip();
+
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 FileChannel in = FileChannel.open(namesFile, StandardOpenOption.READ)) {
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                while (columns.hasRemaining()) {
+                    out.write(columns);
+                }
+                long position = 0;
+                while (position < namesSize) {
+                    position += in.transferTo(position, namesSize - position, out);
+                }
+                out.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(namesFile);
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Номер снимка; в журнале ему соответствует запись-маркер с тем же номером.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    public Customer get(int id) {
+        int row = indexOf(id);
+        return row < 0 ? null : get(row, id);
+    }
+
+    /**
+     * Колонка id, скопированная в массив, по возрастанию.
+     */
+    public int[] ids() {
+        int[] copy = new int[count];
+        ids.duplicate().get(copy);
+        return copy;
+    }
+
+    private Customer get(int row, int id) {
+        Customer customer = decoded.get(row);
+        if (customer != null) {
+            return customer;
+        }
+        String name = null;
+        if ((nulls.get(row >>> 3) & (1 << (row & 7))) == 0) {
+            int start = offsets.get(row);
+            byte[] bytes = new byte[offsets.get(row + 1) - start];
+            ByteBuffer slice = names.duplicate();
+            slice.position(start);
+            slice.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        customer = new Customer(id, name);
+        return decoded.compareAndSet(row, null, customer) ? customer : decoded.get(row);
+    }
+
+    private int indexOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = ids.get(mid);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(from).limit(to);
+        return slice.slice();
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+}
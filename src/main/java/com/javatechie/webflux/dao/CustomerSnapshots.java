@@ -0,0 +1,119 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.config.CustomerLogProperties;
+import com.javatechie.webflux.config.CustomerSnapshotProperties;
+import com.javatechie.webflux.dto.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Каталог снимков {@link CustomerSnapshot}: файлы customers-{sequence}.snapshot, новый снимок
+ * получает следующий номер.
+ */
+@Slf4j
+@Component
+public class CustomerSnapshots {
+
+    private static final String PREFIX = "customers-";
+    private static final String SUFFIX = ".snapshot";
+
+    @Autowired
+    private CustomerSnapshotProperties properties;
+
+    @Autowired
+    private CustomerLogProperties logProperties;
+
+    public boolean isEnabled() {
+        return properties.isEnabled() && logProperties.isEnabled();
+    }
+
+    public CustomerSnapshotProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Самый новый целый снимок или null. Повреждённые снимки пропускаются с предупреждением.
+     */
+    public CustomerSnapshot openNewest() throws IOException {
+        if (!isEnabled()) {
+            return null;
+        }
+        for (Path file : list()) {
+            try {
+                long start = System.currentTimeMillis();
+                CustomerSnapshot snapshot = CustomerSnapshot.open(file);
+                log.info("Mapped snapshot {} ({} customers) in {} ms", file, snapshot.size(), System.currentTimeMillis() - start);
+                return snapshot;
+            } catch (IOException e) {
+                log.warn("Skipping unusable snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    public Path write(long sequence, Iterable<Customer> ascending) throws IOException {
+        Path dir = dir();
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        long start = System.currentTimeMillis();
+        int count = CustomerSnapshot.write(file, sequence, ascending);
+        log.info("Wrote snapshot {} ({} customers, {} bytes) in {} ms", file, count, Files.size(file),
+                System.currentTimeMillis() - start);
+        return file;
+    }
+
+    /**
+     * Удаляет снимки старше sequence: журнал после снимка sequence начинается с его маркера,
+     * так что восстановиться из них уже нельзя.
+     */
+    public void deleteOlderThan(long sequence) throws IOException {
+        for (Path file : list()) {
+            if (sequenceOf(file) < sequence) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Снимки от новых к старым.
+     */
+    private List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Path dir = dir();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                if (sequenceOf(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(CustomerSnapshots::sequenceOf).reversed());
+        return files;
+    }
+
+    private Path dir() {
+        return Paths.get(properties.getDir()).toAbsolutePath();
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+}
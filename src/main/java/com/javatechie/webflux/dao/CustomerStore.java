@@ -0,0 +1,372 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.dto.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+
+/**
+ * In-memory хранилище клиентов: поиск по id за O(1), потоковый обход без создания новых объектов
+ * и обход по возрастанию id начиная с курсора.
+ * <p>
+ * Клиенты разложены по шардам по хешу id (по умолчанию шардов столько же, сколько ядер). У каждого шарда
+ * своя хеш-таблица и свой индекс id, писатель в шард в каждый момент один (блокировка шарда), читатели
+ * идут без блокировок. Сохранения в разные шарды не мешают друг другу.
+ * <p>
+ * Каждый шард сам публикует свои изменения: слушатели вызываются под блокировкой шарда, поэтому
+ * изменения одного id приходят в том порядке, в каком применены, а изменения из разных шардов -
+ * параллельно. Общего порядка между шардами хранилище не задаёт; слушатель, которому он нужен
+ * (лента изменений с номерами), упорядочивает вызовы сам.
+ * <p>
+ * Обход по возрастанию id сливает отсортированные индексы шардов.
+ * <p>
+ * Если при старте есть снимок ({@link CustomerSnapshots}), он становится нижним слоем: клиенты читаются
+ * прямо из отображённого файла, а сохранения после снимка лежат в шардах поверх него.
+ * Тогда seed-клиенты не создаются - они уже в снимке.
+ */
+@Component
+public class CustomerStore {
+
+    @Value("${customer.store.seed-size:50}")
+    private int seedSize;
+
+    @Autowired
+    private CustomerSnapshots snapshots;
+
+    private final Shard[] shards;
+    private volatile CustomerStoreListener[] listeners = new CustomerStoreListener[0];
+
+    private volatile CustomerSnapshot snapshot;
+
+    public CustomerStore() {
+        this(0);
+    }
+
+    /**
+     * @param shards число шардов, 0 - по числу ядер
+     */
+    @Autowired
+    public CustomerStore(@Value("${customer.store.shards:0}") int shards) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    @PostConstruct
+    public void seed() throws IOException {
+        CustomerSnapshot newest = snapshots.openNewest();
+        if (newest != null) {
+            attach(newest);
+            return;
+        }
+        for (int i = 1; i <= seedSize; i++) {
+            put(new Customer(i, "customer" + i));
+        }
+    }
+
+    /**
+     * Делает снимок нижним слоем хранилища. Вызывается до того, как в хранилище что-то сохранено.
+     */
+    public void attach(CustomerSnapshot newest) {
+        lockAll(() -> {
+            for (Shard shard : shards) {
+                if (shard.customers.size() > 0) {
+                    throw new IllegalStateException("Snapshot must be attached to an empty store");
+                }
+            }
+            int[] ids = newest.ids();
+            int[] counts = new int[shards.length];
+            for (int id : ids) {
+                counts[shardOf(id)]++;
+            }
+            int[][] shardIds = new int[shards.length][];
+            for (int i = 0; i < shards.length; i++) {
+                shardIds[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+            for (int id : ids) {
+                int shard = shardOf(id);
+                shardIds[shard][counts[shard]++] = id;
+            }
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].ids.load(shardIds[i]);
+            }
+            snapshot = newest;
+        });
+    }
+
+    /**
+     * Номер снимка, с которого поднялось хранилище, или -1.
+     */
+    public long snapshotSequence() {
+        CustomerSnapshot current = snapshot;
+        return current == null ? -1 : current.getSequence();
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    public Customer get(int id) {
+        Customer customer = shards[shardOf(id)].customers.get(id);
+        if (customer == null) {
+            CustomerSnapshot current = snapshot;
+            if (current != null) {
+                return current.get(id);
+            }
+        }
+        return customer;
+    }
+
+    public Customer put(Customer customer) {
+        Shard shard = shards[shardOf(customer.getId())];
+        synchronized (shard) {
+            Customer previous = shard.customers.put(customer);
+            if (previous == null) {
+                previous = snapshot == null ? null : snapshot.get(customer.getId());
+                if (previous != null) {
+                    shard.shadowed++;
+                } else {
+                    shard.ids.add(customer.getId());
+                }
+            }
+            for (CustomerStoreListener listener : listeners) {
+                listener.customerSaved(previous, customer);
+            }
+            return previous;
+        }
+    }
+
+    public void addListener(CustomerStoreListener listener) {
+        synchronized (this) {
+            CustomerStoreListener[] current = listeners;
+            CustomerStoreListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    /**
+     * Передаёт слушателю текущее содержимое и регистрирует его. Записи во все шарды в это время ждут,
+     * поэтому ни одно изменение не теряется и не приходит дважды.
+     */
+    public void addListener(CustomerStoreListener listener, Consumer<Iterable<Customer>> initialLoad) {
+        lockAll(() -> {
+            initialLoad.accept(scan());
+            addListener(listener);
+        });
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.customers.size() - shard.shadowed;
+        }
+        CustomerSnapshot current = snapshot;
+        return current == null ? size : current.size() + size;
+    }
+
+    /**
+     * Слабо согласованный обход: записи, сделанные во время обхода, могут как попасть, так и не попасть в него.
+     * Поверх снимка это обход по возрастанию id.
+     */
+    public Iterable<Customer> scan() {
+        if (snapshot != null) {
+            return ordered(Long.MIN_VALUE);
+        }
+        return () -> new Iterator<Customer>() {
+            private int shard;
+            private Iterator<Customer> current = shards[0].customers.iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && shard + 1 < shards.length) {
+                    current = shards[++shard].customers.iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Customer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Клиенты с id строго больше afterId в порядке возрастания id. Long.MIN_VALUE - с самого начала.
+     */
+    public Iterable<Customer> ordered(long afterId) {
+        if (shards.length == 1) {
+            return () -> new OrderedIterator(shards[0].ids.iterator(afterId));
+        }
+        return () -> {
+            PrimitiveIterator.OfInt[] iterators = new PrimitiveIterator.OfInt[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                iterators[i] = shards[i].ids.iterator(afterId);
+            }
+            return new OrderedIterator(new MergingIdIterator(iterators));
+        };
+    }
+
+    public Flux<Customer> findAll() {
+        return Flux.fromIterable(ordered(Long.MIN_VALUE));
+    }
+
+    /**
+     * Старшие биты хеша id, умноженные на число шардов: шард не зависит от младших битов,
+     * по которым IntCustomerMap выбирает слот.
+     */
+    private int shardOf(int id) {
+        int h = id * 0x85EBCA6B;
+        h ^= h >>> 15;
+        return (int) ((Integer.toUnsignedLong(h) * shards.length) >>> 32);
+    }
+
+    private void lockAll(Runnable action) {
+        lockAll(0, action);
+    }
+
+    private void lockAll(int from, Runnable action) {
+        if (from == shards.length) {
+            action.run();
+            return;
+        }
+        synchronized (shards[from]) {
+            lockAll(from + 1, action);
+        }
+    }
+
+    private static final class Shard {
+        final IntCustomerMap customers = new IntCustomerMap();
+        final SortedIdIndex ids = new SortedIdIndex();
+        /**
+         * Сколько клиентов шарда перекрывают клиентов снимка с тем же id.
+         */
+        volatile int shadowed;
+    }
+
+    /**
+     * Слияние возрастающих потоков id шардов через двоичную кучу по текущему id каждого потока.
+     * Шарды не пересекаются по id, поэтому повторов нет.
+     */
+    private static final class MergingIdIterator implements PrimitiveIterator.OfInt {
+        private final PrimitiveIterator.OfInt[] iterators;
+        private final int[] heads;
+        private final int[] heap;
+        private int size;
+
+        MergingIdIterator(PrimitiveIterator.OfInt[] iterators) {
+            this.iterators = iterators;
+            this.heads = new int[iterators.length];
+            this.heap = new int[iterators.length];
+            for (int i = 0; i < iterators.length; i++) {
+                if (iterators[i].hasNext()) {
+                    heads[i] = iterators[i].nextInt();
+                    heap[size] = i;
+                    siftUp(size++);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            int top = heap[0];
+            int id = heads[top];
+            if (iterators[top].hasNext()) {
+                heads[top] = iterators[top].nextInt();
+            } else {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return id;
+        }
+
+        private void siftUp(int index) {
+            int item = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heads[heap[parent]] <= heads[item]) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = item;
+        }
+
+        private void siftDown(int index) {
+            if (size == 0) {
+                return;
+            }
+            int item = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heads[heap[child + 1]] < heads[heap[child]]) {
+                    child++;
+                }
+                if (heads[item] <= heads[heap[child]]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = item;
+        }
+    }
+
+    private final class OrderedIterator implements Iterator<Customer> {
+        private final PrimitiveIterator.OfInt idIterator;
+        private Customer next;
+
+        OrderedIterator(PrimitiveIterator.OfInt idIterator) {
+            this.idIterator = idIterator;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && idIterator.hasNext()) {
+                next = get(idIterator.nextInt());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Customer next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Customer current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.dto.Customer;
+
+/**
+ * Уведомление об изменении клиента в {@link CustomerStore}.
+ * <p>
+ * Вызывается синхронно под блокировкой шарда, сразу после того как новое значение стало видно
+ * читателям, поэтому реализация должна быть быстрой и не блокирующей. Изменения одного клиента
+ * приходят по одному, в том порядке, в каком применены; изменения клиентов из разных шардов могут
+ * приходить одновременно из разных потоков, так что реализация должна быть потокобезопасной.
+ */
+public interface CustomerStoreListener {
+
+    /**
+     * @param previous предыдущее значение или null, если клиент новый
+     * @param current  новое значение
+     */
+    void customerSaved(Customer previous, Customer current);
+}
@@ -0,0 +1,165 @@
+package com.javatechie.webflux.dao;
+
+import com.javatechie.webflux.dto.Customer;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Хеш-таблица с открытой адресацией: ключ - примитивный int (id клиента), значение - Customer.
+ * <p>
+ * Один писатель, много читателей: put() вызывается под внешней синхронизацией, а get() и
+ * обход идут без блокировок. Значения пишутся через AtomicReferenceArray, поэтому читатель,
+ * увидевший ненулевое значение, видит и записанный перед ним ключ.
+ * При расширении строится новая таблица и публикуется через volatile-ссылку,
+ * старая таблица после этого не меняется.
+ */
+public class IntCustomerMap implements Iterable<Customer> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private volatile Table table;
+    private volatile int size;
+
+    public IntCustomerMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntCustomerMap(int expectedSize) {
+        this.table = new Table(tableSizeFor(expectedSize));
+    }
+
+    public Customer get(int id) {
+        Table t = table;
+        int i = t.index(id);
+        while (true) {
+            Customer value = t.values.get(i);
+            if (value == null) {
+                return null;
+            }
+            if (t.keys[i] == id) {
+                return value;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    /**
+     * Не потокобезопасен для нескольких писателей.
+     *
+     * @return предыдущее значение или null
+     */
+    public Customer put(Customer customer) {
+        Table t = table;
+        int id = customer.getId();
+        int i = t.index(id);
+        while (true) {
+            Customer value = t.values.get(i);
+            if (value == null) {
+                t.keys[i] = id;
+                t.values.set(i, customer);
+                int newSize = size + 1;
+                size = newSize;
+                if (newSize > t.threshold) {
+                    table = t.resize();
+                }
+                return null;
+            }
+            if (t.keys[i] == id) {
+                t.values.set(i, customer);
+                return value;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Слабо согласованный обход в порядке слотов таблицы, без копирования данных.
+     */
+    @Override
+    public Iterator<Customer> iterator() {
+        return new SlotIterator(table);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static final class Table {
+        final int[] keys;
+        final AtomicReferenceArray<Customer> values;
+        final int mask;
+        final int threshold;
+
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        int index(int id) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        Table resize() {
+            Table next = new Table(keys.length << 1);
+            for (int i = 0; i < keys.length; i++) {
+                Customer value = values.get(i);
+                if (value != null) {
+                    int j = next.index(keys[i]);
+                    while (next.values.get(j) != null) {
+                        j = (j + 1) & next.mask;
+                    }
+                    next.keys[j] = keys[i];
+                    next.values.lazySet(j, value);
+                }
+            }
+            return next;
+        }
+    }
+
+    private static final class SlotIterator implements Iterator<Customer> {
+        private final AtomicReferenceArray<Customer> values;
+        private int index;
+        private Customer next;
+
+        SlotIterator(Table table) {
+            this.values = table.values;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (index < values.length() && next == null) {
+                next = values.get(index++);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Customer next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Customer current = next;
+            advance();
+            return current;
+        }
+    }
+}
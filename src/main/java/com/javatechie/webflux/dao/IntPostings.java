@@ -0,0 +1,65 @@
+package com.javatechie.webflux.dao;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Список id для одной триграммы: растущий int[], только добавление в конец.
+ * <p>
+ * Писатели по очереди (add синхронизирован: в один список могут писать шарды хранилища из разных потоков),
+ * читатели без блокировок: читатель сначала читает size, затем массив, поэтому видит все элементы
+ * до size (при расширении старые элементы копируются до публикации массива).
+ */
+public class IntPostings {
+
+    private volatile int[] ids;
+    private volatile int size;
+
+    public IntPostings() {
+        this.ids = new int[4];
+    }
+
+    /**
+     * @param ids уже собранные id, массив принадлежит списку
+     */
+    public IntPostings(int[] ids, int size) {
+        this.ids = ids;
+        this.size = size;
+    }
+
+    public synchronized void add(int id) {
+        int[] current = ids;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length << 1);
+            ids = current;
+        }
+        current[size] = id;
+        size = size + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        int limit = size;
+        int[] snapshot = ids;
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < limit;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= limit) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[index++];
+            }
+        };
+    }
+}
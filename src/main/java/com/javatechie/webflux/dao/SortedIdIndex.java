@@ -0,0 +1,119 @@
+package com.javatechie.webflux.dao;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Упорядоченный индекс id для обхода клиентов по возрастанию id начиная с произвольного курсора.
+ * <p>
+ * Основная часть - отсортированный int[], новые id сначала попадают в небольшой отсортированный
+ * delta-набор. Когда delta вырастает (больше 1/8 основного массива), они сливаются в новый массив
+ * за O(n), так что вставка в среднем стоит O(log n). Чтение сливает массив и delta на лету:
+ * найти страницу после курсора - O(log n), дальше O(1) на элемент.
+ * <p>
+ * Один писатель (добавления идут под блокировкой шарда {@link CustomerStore}), читатели без блокировок.
+ */
+public class SortedIdIndex {
+
+    private static final int MIN_DELTA_SIZE = 4096;
+
+    private volatile Snapshot snapshot = new Snapshot(new int[0]);
+    private int deltaSize;
+
+    /**
+     * Заменяет содержимое индекса уже отсортированными id (без повторов), массив принадлежит индексу.
+     */
+    public void load(int[] sortedIds) {
+        snapshot = new Snapshot(sortedIds);
+        deltaSize = 0;
+    }
+
+    /**
+     * Добавляет новый id (которого ещё нет в индексе). Не потокобезопасен для нескольких писателей.
+     */
+    public void add(int id) {
+        Snapshot current = snapshot;
+        current.delta.add(id);
+        if (++deltaSize > Math.max(MIN_DELTA_SIZE, current.base.length >> 3)) {
+            snapshot = new Snapshot(merge(current.base, current.delta, deltaSize));
+            deltaSize = 0;
+        }
+    }
+
+    /**
+     * Итератор по id строго больше afterId, по возрастанию. Long.MIN_VALUE - с самого начала.
+     */
+    public PrimitiveIterator.OfInt iterator(long afterId) {
+        Snapshot current = snapshot;
+        if (afterId >= Integer.MAX_VALUE) {
+            return new MergingIterator(current.base, current.base.length, current.delta.iterator(), false);
+        }
+        if (afterId < Integer.MIN_VALUE) {
+            return new MergingIterator(current.base, 0, current.delta.iterator(), true);
+        }
+        int after = (int) afterId;
+        int index = Arrays.binarySearch(current.base, after);
+        int start = index >= 0 ? index + 1 : -index - 1;
+        return new MergingIterator(current.base, start, current.delta.tailSet(after, false).iterator(), true);
+    }
+
+    private static int[] merge(int[] base, ConcurrentSkipListSet<Integer> delta, int deltaSize) {
+        int[] merged = new int[base.length + deltaSize];
+        int i = 0;
+        int j = 0;
+        for (int id : delta) {
+            while (i < base.length && base[i] < id) {
+                merged[j++] = base[i++];
+            }
+            merged[j++] = id;
+        }
+        while (i < base.length) {
+            merged[j++] = base[i++];
+        }
+        return merged;
+    }
+
+    private static final class Snapshot {
+        final int[] base;
+        final ConcurrentSkipListSet<Integer> delta = new ConcurrentSkipListSet<>();
+
+        Snapshot(int[] base) {
+            this.base = base;
+        }
+    }
+
+    private static final class MergingIterator implements PrimitiveIterator.OfInt {
+        private final int[] base;
+        private int index;
+        private final Iterator<Integer> delta;
+        private Integer nextDelta;
+
+        MergingIterator(int[] base, int index, Iterator<Integer> delta, boolean useDelta) {
+            this.base = base;
+            this.index = index;
+            this.delta = delta;
+            this.nextDelta = useDelta && delta.hasNext() ? delta.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < base.length || nextDelta != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (nextDelta != null && (index >= base.length || nextDelta < base[index])) {
+                int id = nextDelta;
+                nextDelta = delta.hasNext() ? delta.next() : null;
+                return id;
+            }
+            if (index < base.length) {
+                return base[index++];
+            }
+            throw new NoSuchElementException();
+        }
+    }
+}
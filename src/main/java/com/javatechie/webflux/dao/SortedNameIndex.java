@@ -0,0 +1,247 @@
+package com.javatechie.webflux.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * Пары (имя, id), упорядоченные по имени, для поиска по префиксу.
+ * <p>
+ * Устроен как {@link SortedIdIndex}: основная часть - отсортированные массивы, новые пары попадают
+ * в небольшой delta-набор и периодически сливаются с массивами. Пары не удаляются при переименовании:
+ * при слиянии выбрасываются пары, чьё имя уже не совпадает с текущим именем клиента, а до слияния
+ * такие пары пропускает поиск - иначе клиент, переименованный с сохранением префикса, нашёлся бы дважды.
+ * <p>
+ * Читатели без блокировок. Писатели (шарды хранилища из разных потоков) добавляют пары параллельно
+ * под блокировкой чтения, слияние берёт блокировку записи, чтобы ни одна пара не попала в уже
+ * слитый delta-набор.
+ */
+public class SortedNameIndex {
+
+    private static final int MIN_DELTA_SIZE = 4096;
+
+    private final IntFunction<String> currentName;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger deltaSize = new AtomicInteger();
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param currentName текущее (нормализованное) имя клиента по id или null, если клиента нет
+     */
+    public SortedNameIndex(IntFunction<String> currentName) {
+        this.currentName = currentName;
+        this.snapshot = new Snapshot(new String[0], new int[0]);
+    }
+
+    /**
+     * Строит индекс сразу из всех пар за O(n log n), без вставок по одной.
+     */
+    public static SortedNameIndex build(String[] names, int[] ids, int size, IntFunction<String> currentName) {
+        List<Key> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(new Key(names[i], ids[i]));
+        }
+        keys.sort(null);
+        SortedNameIndex index = new SortedNameIndex(currentName);
+        index.snapshot = index.toSnapshot(keys.iterator(), size, false);
+        return index;
+    }
+
+    public void add(String name, int id) {
+        boolean merge;
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshot;
+            current.delta.add(new Key(name, id));
+            merge = deltaSize.incrementAndGet() > mergeThreshold(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (merge) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        lock.writeLock().lock();
+        try {
+            Snapshot current = snapshot;
+            //пока ждали блокировку, слить мог другой писатель
+            if (deltaSize.get() > mergeThreshold(current)) {
+                snapshot = toSnapshot(new MergingIterator(current, 0, current.delta.iterator()),
+                        current.names.length + current.delta.size(), true);
+                deltaSize.set(0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int mergeThreshold(Snapshot snapshot) {
+        return Math.max(MIN_DELTA_SIZE, snapshot.names.length >> 3);
+    }
+
+    /**
+     * id клиентов, чьё текущее имя начинается с prefix, по возрастанию имени. Каждый id - не больше одного раза.
+     */
+    public PrimitiveIterator.OfInt startingWith(String prefix) {
+        Snapshot current = snapshot;
+        int start = lowerBound(current.names, prefix);
+        Iterator<Key> keys = new MergingIterator(current, start,
+                current.delta.tailSet(new Key(prefix, Integer.MIN_VALUE), true).iterator());
+        return new PrimitiveIterator.OfInt() {
+            private Key next = advance();
+
+            private Key advance() {
+                while (keys.hasNext()) {
+                    Key key = keys.next();
+                    if (!key.name.startsWith(prefix)) {
+                        return null;
+                    }
+                    if ((next == null || key.compareTo(next) != 0) && key.name.equals(currentName.apply(key.id))) {
+                        return key;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                int id = next.id;
+                next = advance();
+                return id;
+            }
+        };
+    }
+
+    private Snapshot toSnapshot(Iterator<Key> sorted, int capacity, boolean dropStale) {
+        String[] names = new String[capacity];
+        int[] ids = new int[capacity];
+        int size = 0;
+        Key previous = null;
+        while (sorted.hasNext()) {
+            Key key = sorted.next();
+            if (previous != null && previous.compareTo(key) == 0) {
+                continue;
+            }
+            if (dropStale && !key.name.equals(currentName.apply(key.id))) {
+                continue;
+            }
+            names[size] = key.name;
+            ids[size] = key.id;
+            size++;
+            previous = key;
+        }
+        if (size < capacity) {
+            names = Arrays.copyOf(names, size);
+            ids = Arrays.copyOf(ids, size);
+        }
+        return new Snapshot(names, ids);
+    }
+
+    private static int lowerBound(String[] names, String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Snapshot {
+        final String[] names;
+        final int[] ids;
+        final ConcurrentSkipListSet<Key> delta = new ConcurrentSkipListSet<>();
+
+        Snapshot(String[] names, int[] ids) {
+            this.names = names;
+            this.ids = ids;
+        }
+    }
+
+    static final class Key implements Comparable<Key> {
+        final String name;
+        final int id;
+
+        Key(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, id);
+        }
+    }
+
+    private static final class MergingIterator implements Iterator<Key> {
+        private final String[] names;
+        private final int[] ids;
+        private int index;
+        private final Iterator<Key> delta;
+        private Key nextDelta;
+
+        MergingIterator(Snapshot snapshot, int index, Iterator<Key> delta) {
+            this.names = snapshot.names;
+            this.ids = snapshot.ids;
+            this.index = index;
+            this.delta = delta;
+            this.nextDelta = delta.hasNext() ? delta.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < names.length || nextDelta != null;
+        }
+
+        @Override
+        public Key next() {
+            if (index < names.length) {
+                Key base = new Key(names[index], ids[index]);
+                if (nextDelta == null || base.compareTo(nextDelta) <= 0) {
+                    index++;
+                    return base;
+                }
+            }
+            if (nextDelta == null) {
+                throw new NoSuchElementException();
+            }
+            Key key = nextDelta;
+            nextDelta = delta.hasNext() ? delta.next() : null;
+            return key;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.javatechie.webflux.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BulkIngestSummary {
+
+    private long received;
+    /**
+     * Строк, которые не удалось разобрать как клиента.
+     */
+    private long rejected;
+    private int batches;
+    private long elapsedMillis;
+    private long maxBatchMillis;
+    private long customersPerSecond;
+
+    public BulkIngestSummary addBatch(int size, long batchMillis) {
+        received += size;
+        batches++;
+        maxBatchMillis = Math.max(maxBatchMillis, batchMillis);
+        return this;
+    }
+
+    public BulkIngestSummary reject() {
+        rejected++;
+        return this;
+    }
+
+    public BulkIngestSummary finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        this.customersPerSecond = elapsedMillis == 0 ? received : received * 1000 / elapsedMillis;
+        return this;
+    }
+}
@@ -0,0 +1,17 @@
+package com.javatechie.webflux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Результат выборки клиентов по списку id: найденные клиенты и отсортированные id, которых нет.
+ */
+@Data
+@AllArgsConstructor
+public class CustomerBatch {
+
+    private List<Customer> customers;
+    private int[] missing;
+}
@@ -0,0 +1,33 @@
+package com.javatechie.webflux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Событие ленты изменений клиентов.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerChange {
+
+    public enum Type {
+        /**
+         * Клиент создан или изменён, customer - новое значение.
+         */
+        UPSERT,
+        /**
+         * Изменения до sequence недоступны (подписчик отстал или приложение перезапускалось),
+         * список нужно перечитать. customer = null.
+         */
+        RESET
+    }
+
+    /**
+     * Номер изменения, растёт на 1 с каждым сохранением. Начинается заново при перезапуске приложения.
+     */
+    private long sequence;
+    private Type type;
+    private Customer customer;
+}
@@ -0,0 +1,21 @@
+package com.javatechie.webflux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница клиентов в порядке возрастания id и признак того, что за ней есть ещё клиенты.
+ */
+@Data
+@AllArgsConstructor
+public class CustomerPage {
+
+    private List<Customer> customers;
+    private boolean hasMore;
+
+    public int getLastId() {
+        return customers.get(customers.size() - 1).getId();
+    }
+}
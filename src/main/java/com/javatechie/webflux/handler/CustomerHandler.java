@@ -1,41 +1,279 @@
 package com.javatechie.webflux.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.webflux.cache.CachedResponse;
+import com.javatechie.webflux.cache.CustomerResponseCache;
+import com.javatechie.webflux.codec.CustomerEncoders;
+import com.javatechie.webflux.codec.PreEncodedCustomers;
+import com.javatechie.webflux.codec.WireFormat;
+import com.javatechie.webflux.config.BulkIngestProperties;
+import com.javatechie.webflux.config.CustomerMultiGetProperties;
+import com.javatechie.webflux.config.CustomerPageProperties;
+import com.javatechie.webflux.config.CustomerSearchProperties;
 import com.javatechie.webflux.dao.CustomerDao;
+import com.javatechie.webflux.dto.BulkIngestSummary;
 import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerBatch;
+import com.javatechie.webflux.dto.CustomerPage;
+import com.javatechie.webflux.exception.ClientException;
+import com.javatechie.webflux.metrics.StreamMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Optional;
+
 @Service
 public class CustomerHandler {
 
+    private static final ParameterizedTypeReference<List<Customer>> CUSTOMER_LIST = new ParameterizedTypeReference<List<Customer>>() {};
+    private static final StringDecoder NDJSON_LINES = StringDecoder.allMimeTypes();
+    private static final ResolvableType STRING = ResolvableType.forClass(String.class);
+
     @Autowired
     private CustomerDao dao;
 
+    @Autowired
+    private BulkIngestProperties bulkProperties;
+
+    @Autowired
+    private CustomerPageProperties pageProperties;
+
+    @Autowired
+    private CustomerSearchProperties searchProperties;
+
+    @Autowired
+    private CustomerMultiGetProperties multiGetProperties;
+
+    @Autowired
+    private StreamMetrics streamMetrics;
+
+    @Autowired
+    private CustomerResponseCache responseCache;
+
+    @Autowired
+    private CustomerEncoders encoders;
+
+    @Autowired
+    private PreEncodedCustomers preEncoded;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
+    /**
+     * Без параметров отдаёт всех клиентов потоком по возрастанию id. С limit и/или after - одну страницу,
+     * курсор следующей страницы возвращается в заголовках X-Next-Cursor и Link.
+     */
     public Mono<ServerResponse> loadCustomers(ServerRequest request){
-        Flux<Customer> customerList = dao.getCustomerList();
-        return ServerResponse.ok().body(customerList,Customer.class);
+        Optional<String> limitParam = request.queryParam("limit");
+        Optional<String> afterParam = request.queryParam("after");
+        if (limitParam.isEmpty() && afterParam.isEmpty()) {
+            Flux<Customer> customerList = dao.getCustomerList().limitRate(pageProperties.getPrefetch());
+            return writeCustomers(request, ServerResponse.ok(), streamMetrics.instrument("/router/customers", customerList), false);
+        }
+
+        int limit;
+        long afterId;
+        try {
+            limit = limitParam.map(Integer::parseInt).orElse(pageProperties.getMaxLimit());
+            afterId = afterParam.map(PageCursor::decode).map(Integer::longValue).orElse(Long.MIN_VALUE);
+        } catch (NumberFormatException | ClientException e) {
+            return ServerResponse.badRequest().bodyValue(e.getMessage());
+        }
+        if (limit < 1 || limit > pageProperties.getMaxLimit()) {
+            return ServerResponse.badRequest().bodyValue("limit must be between 1 and " + pageProperties.getMaxLimit());
+        }
+
+        CustomerPage page = dao.findPage(afterId, limit);
+        Flux<Customer> customers = Flux.fromIterable(page.getCustomers()).limitRate(pageProperties.getPrefetch());
+        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .headers(headers -> {
+                    if (page.isHasMore()) {
+                        String cursor = PageCursor.encode(page.getLastId());
+                        headers.set("X-Next-Cursor", cursor);
+                        headers.set(HttpHeaders.LINK, "</router/customers?limit=" + limit + "&after=" + cursor + ">; rel=\"next\"");
+                    }
+                });
+        return writeCustomers(request, response, streamMetrics.instrument("/router/customers", customers), true);
+    }
+
+    /**
+     * Поиск по имени без учёта регистра: сначала совпадения по префиксу, затем по подстроке (от трёх символов).
+     */
+    public Mono<ServerResponse> searchCustomers(ServerRequest request){
+        String query = request.queryParam("q").map(String::trim).orElse("");
+        if (query.isEmpty()) {
+            return ServerResponse.badRequest().bodyValue("q must not be empty");
+        }
+        int limit;
+        try {
+            limit = request.queryParam("limit").map(Integer::parseInt).orElse(searchProperties.getDefaultLimit());
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().bodyValue(e.getMessage());
+        }
+        if (limit < 1 || limit > searchProperties.getMaxLimit()) {
+            return ServerResponse.badRequest().bodyValue("limit must be between 1 and " + searchProperties.getMaxLimit());
+        }
+        Flux<Customer> customers = dao.search(query, limit);
+        return writeCustomers(request, ServerResponse.ok(), streamMetrics.instrument("/router/customers/search", customers), true);
+    }
+
+    /**
+     * Клиенты по списку id: ids=1,2,10-20 (параметр можно повторять). Порядок ответа - как в запросе
+     * (order=request, по умолчанию) или по возрастанию id (order=store). Ненайденные id перечисляются
+     * диапазонами в заголовке X-Missing-Ids, их число - в X-Missing-Count.
+     */
+    public Mono<ServerResponse> multiGetCustomers(ServerRequest request){
+        int[] ids;
+        try {
+            ids = IdRanges.parse(request.queryParams().get("ids"), multiGetProperties.getMaxIds());
+        } catch (ClientException e) {
+            return ServerResponse.badRequest().bodyValue(e.getMessage());
+        }
+        return writeBatch(request, ids);
     }
 
+    /**
+     * То же для больших наборов: id передаются в теле JSON-массивом.
+     */
+    public Mono<ServerResponse> multiGetCustomersByBody(ServerRequest request){
+        return request.bodyToMono(int[].class)
+                .defaultIfEmpty(new int[0])
+                .flatMap(ids -> ids.length > multiGetProperties.getMaxIds()
+                        ? ServerResponse.badRequest().bodyValue("At most " + multiGetProperties.getMaxIds() + " ids are allowed")
+                        : writeBatch(request, ids));
+    }
 
+    private Mono<ServerResponse> writeBatch(ServerRequest request, int[] ids) {
+        String order = request.queryParam("order").orElse("request");
+        if (!order.equals("request") && !order.equals("store")) {
+            return ServerResponse.badRequest().bodyValue("order must be request or store");
+        }
+        CustomerBatch batch = dao.findAllById(ids, order.equals("store"));
+        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .header("X-Missing-Count", String.valueOf(batch.getMissing().length));
+        if (batch.getMissing().length > 0) {
+            response.header("X-Missing-Ids", IdRanges.format(batch.getMissing(), multiGetProperties.getMaxMissingHeaderLength()));
+        }
+        Flux<Customer> customers = Flux.fromIterable(batch.getCustomers()).limitRate(pageProperties.getPrefetch());
+        return writeCustomers(request, response, streamMetrics.instrument("/router/customers/multi-get", customers), true);
+    }
+
+    /**
+     * JSON и NDJSON собираются из заранее закодированных байтов клиентов. Форматы, которые не умеют
+     * кодировать поток (CBOR), получают собранный список, остальное WebFlux пишет потоком сам,
+     * выбирая кодек по Accept. Ограниченные списки (bounded) в JSON и NDJSON уходят одним буфером
+     * с Content-Length, чтобы маленькие ответы не сжимались.
+     */
+    private Mono<ServerResponse> writeCustomers(ServerRequest request, ServerResponse.BodyBuilder response,
+                                                Flux<Customer> customers, boolean bounded) {
+        MediaType preEncodedType = preEncoded.select(request.headers().accept());
+        if (preEncodedType != null) {
+            return response.contentType(preEncodedType).body(bounded
+                    ? preEncoded.boundedInserter(customers, preEncodedType)
+                    : preEncoded.inserter(customers, preEncodedType));
+        }
+        WireFormat format = encoders.negotiate(request.headers().accept());
+        if (format != null && !format.isStreamEncoding()) {
+            return response.contentType(format.getMediaType()).body(customers.collectList(), CUSTOMER_LIST);
+        }
+        return response.body(customers, Customer.class);
+    }
+
+
+    /**
+     * Отдаёт клиента из кэша готовых ответов. Поддерживает условные запросы: при совпадении
+     * If-None-Match возвращается 304 без тела. Формат (JSON, CBOR, Smile)
+     * выбирается по Accept.
+     */
     public Mono<ServerResponse> findCustomer(ServerRequest request){
       int customerId= Integer.valueOf( request.pathVariable("input"));
-       // dao.getCustomerList().filter(c->c.getId()==customerId).take(1).single();
-        Mono<Customer> customerMono = dao.getCustomerList().filter(c -> c.getId() == customerId).next();
-        return ServerResponse.ok().body(customerMono,Customer.class);
+        WireFormat format = encoders.negotiate(request.headers().accept());
+        if (format == null) {
+            return ServerResponse.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        return responseCache.lookup(customerId, format)
+                .flatMap(cached -> toResponse(request, format, cached))
+                .switchIfEmpty(ServerResponse.ok().build());
+    }
+
+    private Mono<ServerResponse> toResponse(ServerRequest request, WireFormat format, CachedResponse cached) {
+        if (cached.isNotModified(request.headers().asHttpHeaders())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .eTag(cached.getETag())
+                    .build();
+        }
+        return ServerResponse.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .eTag(cached.getETag())
+                .bodyValue(cached.getBody());
     }
 
 
     public Mono<ServerResponse> saveCustomer(ServerRequest request){
         Mono<Customer> customerMono = request.bodyToMono(Customer.class);
-        Mono<String> saveResponse = customerMono.map(dto -> dto.getId() + ":" + dto.getName());
+        Mono<String> saveResponse = customerMono
+                .flatMap(dao::save)
+                .map(dto -> dto.getId() + ":" + dto.getName());
         return ServerResponse.ok().body(saveResponse,String.class);
     }
 
 
+    /**
+     * Принимает поток клиентов в application/x-ndjson. Тело декодируется по мере поступления,
+     * клиенты сохраняются пачками, поэтому весь запрос никогда не лежит в памяти целиком.
+     */
+    public Mono<ServerResponse> bulkSaveCustomers(ServerRequest request){
+        //сводка и время начала - свои для каждой подписки, а не общие на все повторы запроса
+        Mono<BulkIngestSummary> summary = Mono.defer(() -> {
+            long start = System.currentTimeMillis();
+            BulkIngestSummary result = new BulkIngestSummary();
+            return NDJSON_LINES.decode(request.body(BodyExtractors.toDataBuffers()), STRING, null, null)
+                    .filter(line -> !line.isBlank())
+                    .<Customer>handle((line, sink) -> {
+                        Customer customer = parseCustomer(line);
+                        if (customer == null) {
+                            result.reject();
+                        } else {
+                            sink.next(customer);
+                        }
+                    })
+                    .buffer(bulkProperties.getBatchSize())
+                    .flatMap(batch -> dao.saveAll(batch).thenReturn(batch.size()).elapsed(),
+                            bulkProperties.getMaxInFlightBatches(), 1)
+                    .reduce(result, (current, batch) -> current.addBatch(batch.getT2(), batch.getT1()))
+                    .map(current -> current.finish(System.currentTimeMillis() - start));
+        });
+        return ServerResponse.ok().body(summary, BulkIngestSummary.class);
+    }
+
+    /**
+     * Строка NDJSON, которую не удалось разобрать, пропускается и попадает в rejected сводки,
+     * а не обрывает весь приём.
+     */
+    private Customer parseCustomer(String line) {
+        try {
+            return objectMapper.readValue(line, Customer.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+
 
 }
@@ -1,9 +1,12 @@
 package com.javatechie.webflux.handler;
 
-import com.javatechie.webflux.dao.CustomerDao;
-import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerChange;
+import com.javatechie.webflux.metrics.StreamMetrics;
+import com.javatechie.webflux.service.CustomerChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -13,14 +16,36 @@ import reactor.core.publisher.Mono;
 @Service
 public class CustomerStreamHandler {
 
+    private static final ParameterizedTypeReference<ServerSentEvent<CustomerChange>> CHANGE_EVENT =
+            new ParameterizedTypeReference<ServerSentEvent<CustomerChange>>() {
+            };
+
+    @Autowired
+    private CustomerChangeFeed customerChangeFeed;
+
     @Autowired
-    private CustomerDao dao;
+    private StreamMetrics streamMetrics;
 
 
+    /**
+     * Изменения клиентов по мере сохранения: id события - номер изменения, по Last-Event-ID
+     * переподключившийся клиент получает пропущенные изменения.
+     */
     public Mono<ServerResponse> getCustomers(ServerRequest request) {
-        Flux<Customer> customersStream = dao.getCustomersStream();
+        long lastSeen;
+        try {
+            lastSeen = request.headers().header("Last-Event-ID").stream().findFirst()
+                    .map(String::trim).map(Long::parseLong).orElse(-1L);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().bodyValue("Invalid Last-Event-ID: " + e.getMessage());
+        }
+        Flux<ServerSentEvent<CustomerChange>> changes = customerChangeFeed.subscribe("router-customers-stream", lastSeen)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(Long.toString(change.getSequence()))
+                        .event(change.getType().name().toLowerCase())
+                        .build());
         return ServerResponse.ok().
                 contentType(MediaType.TEXT_EVENT_STREAM)
-                .body(customersStream, Customer.class);
+                .body(streamMetrics.instrument("/router/customers/stream", changes), CHANGE_EVENT);
     }
 }
@@ -0,0 +1,88 @@
+package com.javatechie.webflux.handler;
+
+import com.javatechie.webflux.exception.ClientException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактная запись набора id через диапазоны: "1,5-9,12". Используется и во входных параметрах
+ * multi-get, и в заголовке X-Missing-Ids.
+ */
+public final class IdRanges {
+
+    private IdRanges() {
+    }
+
+    /**
+     * Разбирает значения вида "1,2,10-20" (параметр можно повторять) в порядке записи.
+     *
+     * @throws ClientException если запись некорректна или id больше maxIds
+     */
+    public static int[] parse(List<String> values, int maxIds) {
+        int[] ids = new int[16];
+        int size = 0;
+        for (String value : values) {
+            for (String token : value.split(",")) {
+                token = token.trim();
+                if (token.isEmpty()) {
+                    continue;
+                }
+                int dash = token.indexOf('-', 1);
+                int from = parseId(dash < 0 ? token : token.substring(0, dash));
+                int to = dash < 0 ? from : parseId(token.substring(dash + 1));
+                if (to < from) {
+                    throw new ClientException("Invalid id range: " + token);
+                }
+                if ((long) size + to - from + 1 > maxIds) {
+                    throw new ClientException("At most " + maxIds + " ids are allowed");
+                }
+                if (size + to - from + 1 > ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + to - from + 1));
+                }
+                for (long id = from; id <= to; id++) {
+                    ids[size++] = (int) id;
+                }
+            }
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+    private static int parseId(String token) {
+        try {
+            return Integer.parseInt(token.trim());
+        } catch (NumberFormatException e) {
+            throw new ClientException("Invalid id: " + token, e);
+        }
+    }
+
+    /**
+     * Записывает отсортированные id диапазонами. Если запись длиннее maxLength, она обрезается
+     * по границе диапазона и заканчивается на ",...".
+     */
+    public static String format(int[] sortedIds, int maxLength) {
+        StringBuilder result = new StringBuilder();
+        int i = 0;
+        while (i < sortedIds.length) {
+            int from = sortedIds[i];
+            int to = from;
+            while (i + 1 < sortedIds.length && sortedIds[i + 1] == to + 1) {
+                to = sortedIds[++i];
+            }
+            i++;
+            int length = result.length();
+            if (length > 0) {
+                result.append(',');
+            }
+            result.append(from);
+            if (to != from) {
+                result.append('-').append(to);
+            }
+            if (result.length() + (i < sortedIds.length ? 4 : 0) > maxLength) {
+                result.setLength(length);
+                return result.append(length > 0 ? ",..." : "...").toString();
+            }
+        }
+        return result.toString();
+    }
+}
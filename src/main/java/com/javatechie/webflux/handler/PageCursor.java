@@ -0,0 +1,34 @@
+package com.javatechie.webflux.handler;
+
+import com.javatechie.webflux.exception.ClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный для клиента курсор страницы: закодированный id последнего отданного клиента.
+ */
+final class PageCursor {
+
+    private static final String PREFIX = "after:";
+
+    private PageCursor() {
+    }
+
+    static String encode(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new ClientException("Invalid cursor: " + cursor);
+            }
+            return Integer.parseInt(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ClientException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
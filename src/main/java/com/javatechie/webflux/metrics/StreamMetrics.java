@@ -0,0 +1,93 @@
+package com.javatechie.webflux.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики потоковых ответов. Общее время запроса уже пишет http.server.requests, а здесь
+ * для каждого маршрута считаются:
+ * <ul>
+ *     <li>customer.stream.first-element - время от подписки до первого элемента;</li>
+ *     <li>customer.stream.duration - время до завершения, с тегом outcome (complete, error, cancelled);</li>
+ *     <li>customer.stream.elements - число отправленных элементов, с тем же тегом outcome.</li>
+ * </ul>
+ */
+@Component
+public class StreamMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, RouteMeters> meters = new ConcurrentHashMap<>();
+
+    public <T> Flux<T> instrument(String route, Flux<T> flux) {
+        RouteMeters routeMeters = meters.computeIfAbsent(route, RouteMeters::new);
+        return Flux.defer(() -> {
+            Subscription subscription = new Subscription();
+            return flux
+                    .doOnNext(element -> {
+                        if (subscription.elements++ == 0) {
+                            routeMeters.firstElement.record(System.nanoTime() - subscription.start, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doFinally(signal -> routeMeters.finish(signal, subscription));
+        });
+    }
+
+    private static final class Subscription {
+        final long start = System.nanoTime();
+        long elements;
+    }
+
+    private final class RouteMeters {
+        final Timer firstElement;
+        final Outcome complete;
+        final Outcome error;
+        final Outcome cancelled;
+
+        RouteMeters(String route) {
+            firstElement = Timer.builder("customer.stream.first-element")
+                    .tag("route", route)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            complete = new Outcome(route, "complete");
+            error = new Outcome(route, "error");
+            cancelled = new Outcome(route, "cancelled");
+        }
+
+        void finish(SignalType signal, Subscription subscription) {
+            Outcome outcome = signal == SignalType.ON_COMPLETE ? complete
+                    : signal == SignalType.CANCEL ? cancelled : error;
+            outcome.duration.record(System.nanoTime() - subscription.start, TimeUnit.NANOSECONDS);
+            outcome.elements.record(subscription.elements);
+        }
+
+        private final class Outcome {
+            final Timer duration;
+            final DistributionSummary elements;
+
+            Outcome(String route, String outcome) {
+                duration = Timer.builder("customer.stream.duration")
+                        .tag("route", route)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry);
+                elements = DistributionSummary.builder("customer.stream.elements")
+                        .tag("route", route)
+                        .tag("outcome", outcome)
+                        .baseUnit("customers")
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+        }
+    }
+}
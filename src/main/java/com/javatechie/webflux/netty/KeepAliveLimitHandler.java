@@ -0,0 +1,31 @@
+package com.javatechie.webflux.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * Ограничивает число запросов на одном HTTP/1.1 соединении: последний разрешённый запрос
+ * помечается как Connection: close, и Reactor Netty закрывает соединение после ответа на него.
+ * Стоит после HTTP-кодека, один экземпляр на соединение.
+ */
+public class KeepAliveLimitHandler extends ChannelInboundHandlerAdapter {
+
+    public static final String NAME = "customer.keepAliveLimit";
+
+    private final int maxRequests;
+    private int requests;
+
+    public KeepAliveLimitHandler(int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest && ++requests >= maxRequests) {
+            HttpUtil.setKeepAlive((HttpRequest) msg, false);
+        }
+        ctx.fireChannelRead(msg);
+    }
+}
@@ -0,0 +1,50 @@
+package com.javatechie.webflux.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Те же лимиты, что и у маршрутов роутера, для {@link com.javatechie.webflux.controller.CustomerController}.
+ * Остальные запросы фильтр пропускает без проверки.
+ */
+@Component
+public class RateLimitWebFilter implements WebFilter {
+
+    private static final Map<String, String> ROUTES = new HashMap<>();
+
+    static {
+        ROUTES.put("/customers", "customers");
+        ROUTES.put("/customers/stream", "customers-stream");
+    }
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String route = ROUTES.get(request.getPath().pathWithinApplication().value());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        long wait = rateLimiter.tryAcquire(route, rateLimiter.clientKey(request.getHeaders(), request.getRemoteAddress()));
+        if (wait == 0) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, RateLimiter.retryAfterSeconds(wait));
+        return response.setComplete();
+    }
+}
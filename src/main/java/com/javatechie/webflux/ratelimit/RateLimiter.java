@@ -0,0 +1,133 @@
+package com.javatechie.webflux.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javatechie.webflux.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import javax.annotation.PostConstruct;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лимиты запросов по маршрутам: корзина на каждого клиента и общая корзина маршрута.
+ * Сначала проверяется клиентская корзина, так что отклонённые запросы шумного клиента
+ * не расходуют общий лимит остальных.
+ */
+@Component
+public class RateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, RouteLimit> routes = new ConcurrentHashMap<>();
+    private Cache<String, TokenBucket> clientBuckets;
+
+    @PostConstruct
+    public void init() {
+        clientBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+    }
+
+    /**
+     * @return 0, если запрос можно выполнить, иначе через сколько наносекунд стоит повторить
+     */
+    public long tryAcquire(String route, String client) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        RouteLimit routeLimit = routes.computeIfAbsent(route, RouteLimit::new);
+        long now = System.nanoTime();
+        if (routeLimit.limit.getClientRate() > 0) {
+            TokenBucket bucket = clientBuckets.get(route + '|' + client,
+                    key -> new TokenBucket(routeLimit.limit.getClientRate(), routeLimit.limit.getClientBurst()));
+            long wait = bucket.tryAcquire(now);
+            if (wait > 0) {
+                routeLimit.rejectedByClient.increment();
+                return wait;
+            }
+        }
+        if (routeLimit.global != null) {
+            long wait = routeLimit.global.tryAcquire(now);
+            if (wait > 0) {
+                routeLimit.rejectedByGlobal.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Клиент - значение заголовка из настроек, а без него IP-адрес.
+     */
+    public String clientKey(HttpHeaders headers, InetSocketAddress remoteAddress) {
+        if (properties.getClientHeader() != null) {
+            String client = headers.getFirst(properties.getClientHeader());
+            if (client != null) {
+                return client;
+            }
+        }
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+
+    /**
+     * Оборачивает обработчик маршрута роутера: при превышении лимита отвечает 429 с Retry-After.
+     */
+    public HandlerFunction<ServerResponse> limit(String route, HandlerFunction<ServerResponse> handler) {
+        HandlerFilterFunction<ServerResponse, ServerResponse> filter = (request, next) -> {
+            long wait = tryAcquire(route, clientKey(request.headers().asHttpHeaders(), request.remoteAddress().orElse(null)));
+            if (wait == 0) {
+                return next.handle(request);
+            }
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(wait))
+                    .build();
+        };
+        return filter.apply(handler);
+    }
+
+    public static String retryAfterSeconds(long waitNanos) {
+        return String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private final class RouteLimit {
+        final RateLimitProperties.Limit limit;
+        final StripedTokenBucket global;
+        final Counter rejectedByClient;
+        final Counter rejectedByGlobal;
+
+        RouteLimit(String route) {
+            limit = properties.limitFor(route);
+            global = limit.getGlobalRate() > 0
+                    ? new StripedTokenBucket(limit.getGlobalRate(), limit.getGlobalBurst(), properties.getGlobalStripes())
+                    : null;
+            rejectedByClient = rejected(route, "client");
+            rejectedByGlobal = rejected(route, "global");
+        }
+
+        private Counter rejected(String route, String scope) {
+            return Counter.builder("customer.rate-limit.rejected")
+                    .tag("route", route)
+                    .tag("scope", scope)
+                    .register(registry);
+        }
+    }
+}
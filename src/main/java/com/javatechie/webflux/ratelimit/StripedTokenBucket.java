@@ -0,0 +1,38 @@
+package com.javatechie.webflux.ratelimit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Общий лимит, разделённый на несколько независимых {@link TokenBucket}, каждый со своей долей
+ * rate и burst. Запрос начинает со случайной полосы, поэтому потоки почти не делят один счётчик,
+ * а если в ней нет токена - пробует остальные. Так суммарный лимит сохраняется при любом числе
+ * потоков, в том числе когда все запросы идут из одного event loop.
+ */
+public class StripedTokenBucket {
+
+    private final TokenBucket[] stripes;
+
+    public StripedTokenBucket(double rate, int burst, int stripeCount) {
+        int count = Math.max(1, Math.min(stripeCount, burst));
+        stripes = new TokenBucket[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new TokenBucket(rate / count, Math.max(1, burst / count));
+        }
+    }
+
+    /**
+     * @return 0, если токен получен, иначе через сколько наносекунд он появится в ближайшей полосе
+     */
+    public long tryAcquire(long nowNanos) {
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        long wait = Long.MAX_VALUE;
+        for (int i = 0; i < stripes.length; i++) {
+            long stripeWait = stripes[(start + i) % stripes.length].tryAcquire(nowNanos);
+            if (stripeWait == 0) {
+                return 0;
+            }
+            wait = Math.min(wait, stripeWait);
+        }
+        return wait;
+    }
+}
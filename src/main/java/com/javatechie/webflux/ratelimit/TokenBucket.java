@@ -0,0 +1,45 @@
+package com.javatechie.webflux.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket в виде GCRA: вместо числа токенов хранится одно число - теоретическое время
+ * прихода следующего запроса (TAT). Запрос пропускается, если TAT опережает текущее время не больше
+ * чем на burst интервалов. Обновление - один CAS, без блокировок.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param rate  токенов в секунду
+     * @param burst сколько запросов можно сделать подряд после простоя
+     */
+    public TokenBucket(double rate, int burst) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / rate));
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    /**
+     * @return 0, если токен получен, иначе через сколько наносекунд он появится
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long next = base + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
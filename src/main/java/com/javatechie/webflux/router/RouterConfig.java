@@ -2,13 +2,18 @@ package com.javatechie.webflux.router;
 
 import com.javatechie.webflux.handler.CustomerHandler;
 import com.javatechie.webflux.handler.CustomerStreamHandler;
+import com.javatechie.webflux.ratelimit.RateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+
 @Configuration
 public class RouterConfig {
 
@@ -18,13 +23,20 @@ public class RouterConfig {
     @Autowired
     private CustomerStreamHandler streamHandler;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @Bean
     public RouterFunction<ServerResponse> routerFunction(){
         return RouterFunctions.route()
-                .GET("/router/customers",handler::loadCustomers)
-                .GET("/router/customers/stream",streamHandler::getCustomers)
-                .GET("/router/customer/{input}",handler::findCustomer)
-                .POST("/router/customer/save",handler::saveCustomer)
+                .GET("/router/customers",queryParam("ids",ids -> true),rateLimiter.limit("router-customers-multi-get",handler::multiGetCustomers))
+                .POST("/router/customers/multi-get",contentType(MediaType.APPLICATION_JSON),rateLimiter.limit("router-customers-multi-get",handler::multiGetCustomersByBody))
+                .GET("/router/customers",rateLimiter.limit("router-customers",handler::loadCustomers))
+                .GET("/router/customers/stream",rateLimiter.limit("router-customers-stream",streamHandler::getCustomers))
+                .GET("/router/customers/search",rateLimiter.limit("router-customers-search",handler::searchCustomers))
+                .GET("/router/customer/{input}",rateLimiter.limit("router-customer",handler::findCustomer))
+                .POST("/router/customer/save",rateLimiter.limit("router-customer-save",handler::saveCustomer))
+                .POST("/router/customer/bulk",contentType(MediaType.APPLICATION_NDJSON),rateLimiter.limit("router-customer-bulk",handler::bulkSaveCustomers))
                 .build();
 
     }
@@ -0,0 +1,107 @@
+package com.javatechie.webflux.service;
+
+import com.javatechie.webflux.dao.CustomerStoreListener;
+import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerChange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Лента изменений клиентов: каждое сохранение, видимое в хранилище, публикуется подписчикам
+ * с растущим номером.
+ * <p>
+ * Шарды хранилища публикуют изменения параллельно и без общей блокировки: изменение только ставится
+ * в неблокирующую очередь, а номера выдаёт и в sink публикует тот поток, который первым взялся её
+ * разбирать (остальные сразу возвращаются). Поэтому события идут строго по очереди с растущими
+ * номерами, а изменения одного клиента - в порядке сохранения: шард ставит их в очередь под своей
+ * блокировкой. Последние buffer изменений хранятся, чтобы переподключившийся подписчик получил
+ * пропущенное (Last-Event-ID); если пропущено больше, он получает {@link CustomerChange.Type#RESET}.
+ * <p>
+ * У каждого подписчика свой ограниченный буфер ({@link SlowConsumerGuard}), как в {@link StreamHub}.
+ */
+public class CustomerChangeFeed implements CustomerStoreListener {
+
+    private final int buffer;
+    private final Sinks.Many<CustomerChange> sink;
+    private final Function<String, SlowConsumerGuard<CustomerChange>> guardFactory;
+    private final Map<String, SlowConsumerGuard<CustomerChange>> guards = new ConcurrentHashMap<>();
+    private final Queue<Customer> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger draining = new AtomicInteger();
+
+    //пишет только поток, разбирающий очередь
+    private volatile long sequence;
+
+    /**
+     * @param buffer       сколько последних изменений доступно переподключившимся подписчикам
+     * @param guardFactory буфер подписчика для маршрута
+     */
+    public CustomerChangeFeed(int buffer, Function<String, SlowConsumerGuard<CustomerChange>> guardFactory) {
+        this.buffer = Math.max(1, buffer);
+        this.sink = Sinks.many().replay().limit(this.buffer);
+        this.guardFactory = guardFactory;
+    }
+
+    @Override
+    public void customerSaved(Customer previous, Customer current) {
+        pending.offer(current);
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Customer customer;
+            while ((customer = pending.poll()) != null) {
+                long next = sequence + 1;
+                sink.tryEmitNext(new CustomerChange(next, CustomerChange.Type.UPSERT, customer));
+                sequence = next;
+            }
+            missed = draining.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Номер последнего опубликованного изменения, 0 - изменений ещё не было.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Изменения после lastSeen. Если lastSeen меньше 0, только новые изменения; если нужных изменений
+     * уже нет в буфере, сначала приходит RESET.
+     *
+     * @param route маршрут, по которому выбирается политика для медленных подписчиков
+     */
+    public Flux<CustomerChange> subscribe(String route, long lastSeen) {
+        SlowConsumerGuard<CustomerChange> guard = guards.computeIfAbsent(route, guardFactory);
+        return guard.apply(Flux.defer(() -> {
+            long current = sequence;
+            if (lastSeen < 0) {
+                return changesAfter(current);
+            }
+            if (lastSeen > current || lastSeen < current - buffer) {
+                return changesAfter(current)
+                        .startWith(new CustomerChange(current, CustomerChange.Type.RESET, null));
+            }
+            return changesAfter(lastSeen);
+        }));
+    }
+
+    public int subscribers() {
+        return sink.currentSubscriberCount();
+    }
+
+    /**
+     * Подписка на буфер сразу отдаёт сохранённые изменения, а дальше новые, без разрыва между ними.
+     */
+    private Flux<CustomerChange> changesAfter(long lastSeen) {
+        return sink.asFlux().filter(change -> change.getSequence() > lastSeen);
+    }
+}
@@ -5,6 +5,8 @@ import com.javatechie.webflux.dto.Customer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.List;
 
@@ -14,22 +16,21 @@ public class CustomerService {
     @Autowired
     private CustomerDao dao;
 
+    @Autowired
+    private Scheduler blockingScheduler;
+
+    @Autowired
+    private StreamHub<Customer> customerStreamHub;
+
 
-    public List<Customer> loadAllCustomers() {
-        long start = System.currentTimeMillis();
-        List<Customer> customers = dao.getCustomers();
-        long end = System.currentTimeMillis();
-        System.out.println("Total execution time : " + (end - start));
-        return customers;
+    public Mono<List<Customer>> loadAllCustomers() {
+        return Mono.fromCallable(dao::getCustomers)
+                .subscribeOn(blockingScheduler);
     }
 
 
 
     public Flux<Customer> loadAllCustomersStream() {
-        long start = System.currentTimeMillis();
-        Flux<Customer> customers = dao.getCustomersStream();
-        long end = System.currentTimeMillis();
-        System.out.println("Total execution time : " + (end - start));
-        return customers;
+        return customerStreamHub.subscribe("customers-stream");
     }
 }
@@ -0,0 +1,140 @@
+package com.javatechie.webflux.service;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченный буфер между горячим источником и одним подписчиком.
+ * <p>
+ * У источника запрашивается всё сразу, так что медленный подписчик его не тормозит, а события,
+ * которые подписчик ещё не запросил, лежат в буфере. Буфер ограничен и числом событий, и
+ * примерным объёмом в байтах; при переполнении действует {@link SlowConsumerPolicy}.
+ */
+@Slf4j
+public class SlowConsumerGuard<T> {
+
+    private final String route;
+    private final SlowConsumerPolicy policy;
+    private final int maxEvents;
+    private final long maxBytes;
+    private final ToIntFunction<T> sizeEstimator;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public SlowConsumerGuard(String route, SlowConsumerPolicy policy, int maxEvents, long maxBytes,
+                             ToIntFunction<T> sizeEstimator, Counter dropped, Counter disconnected) {
+        this.route = route;
+        this.policy = policy;
+        this.maxEvents = Math.max(1, maxEvents);
+        this.maxBytes = maxBytes;
+        this.sizeEstimator = sizeEstimator;
+        this.dropped = dropped;
+        this.disconnected = disconnected;
+    }
+
+    public Flux<T> apply(Flux<T> upstream) {
+        return Flux.create(sink -> {
+            Connection connection = new Connection(sink);
+            sink.onRequest(n -> connection.drain());
+            Disposable subscription = upstream.subscribe(connection::onNext, connection::onError, connection::onComplete);
+            sink.onDispose(subscription);
+        });
+    }
+
+    private final class Connection {
+        private final FluxSink<T> sink;
+        private final ArrayDeque<T> events = new ArrayDeque<>();
+        private final ArrayDeque<Integer> sizes = new ArrayDeque<>();
+        private long bytes;
+        private boolean done;
+        private Throwable error;
+        private boolean terminated;
+        private boolean draining;
+
+        Connection(FluxSink<T> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void onNext(T event) {
+            if (terminated) {
+                return;
+            }
+            if (policy == SlowConsumerPolicy.LATEST_ONLY && !events.isEmpty()) {
+                removeOldest();
+                dropped.increment();
+            }
+            int size = sizeEstimator.applyAsInt(event);
+            events.add(event);
+            sizes.add(size);
+            bytes += size;
+            if (events.size() > maxEvents || bytes > maxBytes) {
+                overflow();
+            }
+            drain();
+        }
+
+        synchronized void onError(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        synchronized void onComplete() {
+            done = true;
+            drain();
+        }
+
+        synchronized void drain() {
+            if (draining || terminated) {
+                return;
+            }
+            draining = true;
+            try {
+                while (!events.isEmpty() && sink.requestedFromDownstream() > 0) {
+                    bytes -= sizes.poll();
+                    sink.next(events.poll());
+                }
+                if (done && events.isEmpty()) {
+                    terminated = true;
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                }
+            } finally {
+                draining = false;
+            }
+        }
+
+        private void overflow() {
+            if (policy == SlowConsumerPolicy.BUFFER_THEN_DISCONNECT) {
+                log.warn("Slow subscriber of {} disconnected: {} events / {} bytes buffered", route, events.size(), bytes);
+                disconnected.increment();
+                events.clear();
+                sizes.clear();
+                bytes = 0;
+                terminated = true;
+                sink.error(Exceptions.failWithOverflow("Slow subscriber of " + route + " disconnected"));
+                return;
+            }
+            //самое свежее событие остаётся, даже если одно оно больше лимита по байтам
+            while (events.size() > 1 && (events.size() > maxEvents || bytes > maxBytes)) {
+                removeOldest();
+                dropped.increment();
+            }
+        }
+
+        private void removeOldest() {
+            events.poll();
+            bytes -= sizes.poll();
+        }
+    }
+}
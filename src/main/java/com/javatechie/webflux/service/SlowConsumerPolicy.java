@@ -0,0 +1,22 @@
+package com.javatechie.webflux.service;
+
+/**
+ * Что делать с событиями, которые подписчик не успевает забирать.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Копить до предела буфера, затем отключить подписчика.
+     */
+    BUFFER_THEN_DISCONNECT,
+
+    /**
+     * Держать буфер заполненным самыми свежими событиями, выбрасывая самые старые.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Хранить только последнее событие: подписчик получает актуальное состояние, промежуточные теряются.
+     */
+    LATEST_ONLY
+}
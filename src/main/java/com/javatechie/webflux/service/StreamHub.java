@@ -0,0 +1,72 @@
+package com.javatechie.webflux.service;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Один горячий источник на все подписки.
+ * <p>
+ * Источник запускается при первом подписчике и разделяется между всеми остальными через
+ * replay(n).refCount() (или publish().refCount(), если replay = 0). Когда источник завершился или
+ * ушёл последний подписчик, следующий подписчик запускает его заново.
+ * <p>
+ * У каждого подписчика свой ограниченный буфер ({@link SlowConsumerGuard}), так что медленный клиент
+ * не тормозит остальных. Что делать при переполнении, задаётся для каждого маршрута.
+ */
+public class StreamHub<T> {
+
+    private final String name;
+    private final Supplier<Flux<T>> source;
+    private final boolean enabled;
+    private final int replay;
+    private final Function<String, SlowConsumerGuard<T>> guardFactory;
+    private final Map<String, SlowConsumerGuard<T>> guards = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private Flux<T> shared;
+
+    /**
+     * @param enabled      если false, каждый подписчик получает собственный конвейер из source
+     * @param guardFactory буфер подписчика для маршрута
+     */
+    public StreamHub(String name, Supplier<Flux<T>> source, boolean enabled, int replay,
+                     Function<String, SlowConsumerGuard<T>> guardFactory) {
+        this.name = name;
+        this.source = source;
+        this.enabled = enabled;
+        this.replay = replay;
+        this.guardFactory = guardFactory;
+    }
+
+    /**
+     * @param route маршрут, по которому выбирается политика для медленных подписчиков
+     */
+    public Flux<T> subscribe(String route) {
+        SlowConsumerGuard<T> guard = guards.computeIfAbsent(route, guardFactory);
+        Flux<T> upstream = enabled ? Flux.defer(this::current) : Flux.defer(source);
+        return guard.apply(upstream)
+                .doOnSubscribe(s -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public int subscribers() {
+        return subscribers.get();
+    }
+
+    private synchronized Flux<T> current() {
+        if (shared == null) {
+            Flux<T> upstream = source.get().doFinally(signal -> reset());
+            shared = replay > 0 ? upstream.replay(replay).refCount() : upstream.publish().refCount();
+        }
+        return shared;
+    }
+
+    private synchronized void reset() {
+        shared = null;
+    }
+}
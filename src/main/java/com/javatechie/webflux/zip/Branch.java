@@ -0,0 +1,100 @@
+package com.javatechie.webflux.zip;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Одна ветка графа {@link ScatterGather}: именованный асинхронный вызов, который может зависеть
+ * от результатов других веток.
+ * <p>
+ * Экземпляры неизменяемы, методы настройки возвращают новую ветку.
+ */
+public final class Branch<T> {
+
+    private final String name;
+    private final List<String> dependsOn;
+    private final Function<BranchResults, Mono<T>> call;
+    private final Scheduler scheduler;
+    private final Duration timeout;
+    private final Function<Throwable, Mono<T>> fallback;
+
+    private Branch(String name, List<String> dependsOn, Function<BranchResults, Mono<T>> call,
+                   Scheduler scheduler, Duration timeout, Function<Throwable, Mono<T>> fallback) {
+        this.name = name;
+        this.dependsOn = dependsOn;
+        this.call = call;
+        this.scheduler = scheduler;
+        this.timeout = timeout;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Неблокирующий вызов. Функция вызывается только после того, как готовы все зависимости.
+     */
+    public static <T> Branch<T> of(String name, Function<BranchResults, Mono<T>> call) {
+        return new Branch<>(name, Collections.emptyList(), call, null, null, null);
+    }
+
+    /**
+     * Блокирующий вызов: выполняется на переданном планировщике (например, blockingScheduler),
+     * а не на потоке, который завершил последнюю зависимость.
+     */
+    public static <T> Branch<T> blocking(String name, Function<BranchResults, T> call, Scheduler scheduler) {
+        return new Branch<T>(name, Collections.emptyList(), results -> Mono.fromCallable(() -> call.apply(results)),
+                null, null, null).subscribeOn(scheduler);
+    }
+
+    public Branch<T> dependsOn(String... names) {
+        return new Branch<>(name, Collections.unmodifiableList(Arrays.asList(names)), call, scheduler, timeout, fallback);
+    }
+
+    public Branch<T> subscribeOn(Scheduler scheduler) {
+        return new Branch<>(name, dependsOn, call, scheduler, timeout, fallback);
+    }
+
+    /**
+     * Ограничение на время самого вызова, без учёта ожидания зависимостей.
+     */
+    public Branch<T> timeout(Duration timeout) {
+        return new Branch<>(name, dependsOn, call, scheduler, timeout, fallback);
+    }
+
+    /**
+     * Запасной результат при ошибке или таймауте ветки. Без него ошибка ветки завершает весь граф.
+     */
+    public Branch<T> fallback(Function<Throwable, Mono<T>> fallback) {
+        return new Branch<>(name, dependsOn, call, scheduler, timeout, fallback);
+    }
+
+    public Branch<T> fallbackValue(T value) {
+        return fallback(e -> Mono.just(value));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    Mono<T> invoke(BranchResults results) {
+        Mono<T> mono = Mono.defer(() -> call.apply(results));
+        if (scheduler != null) {
+            mono = mono.subscribeOn(scheduler);
+        }
+        if (timeout != null) {
+            mono = mono.timeout(timeout);
+        }
+        if (fallback != null) {
+            mono = mono.onErrorResume(fallback);
+        }
+        return mono;
+    }
+}
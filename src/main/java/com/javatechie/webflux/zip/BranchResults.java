@@ -0,0 +1,32 @@
+package com.javatechie.webflux.zip;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Результаты уже завершившихся веток графа {@link ScatterGather}, по имени ветки.
+ */
+public final class BranchResults {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+    void put(String name, Object value) {
+        values.put(name, value);
+    }
+
+    /**
+     * @return результат ветки или null, если ветка завершилась без значения
+     */
+    public <T> T get(String name, Class<T> type) {
+        return type.cast(values.get(name));
+    }
+
+    public boolean contains(String name) {
+        return values.containsKey(name);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
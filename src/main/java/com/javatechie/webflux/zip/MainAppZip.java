@@ -1,9 +1,12 @@
 package com.javatechie.webflux.zip;
 
+import com.javatechie.webflux.config.BlockingSchedulerProperties;
+import com.javatechie.webflux.config.BlockingSchedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
 
 /**
  * <a href="https://stackoverflow.com/questions/58445213/zip-three-different-mono-of-different-type">Заверните три разных моно разного типа в один ответ</>
@@ -16,34 +19,34 @@ public class MainAppZip {
     public static void main(String[] args) {
 
         ServiceOne serviceOne = new ServiceOne();
-        Mono<CustomObject> responseMonoOne = serviceOne.methodOne();
-
         ServiceTwo serviceTwo = new ServiceTwo();
-        Mono<String> responseMonoTwo = serviceTwo.methodTwo();
-
         ServiceThree serviceThree = new ServiceThree();
-
-        Mono<Object> result = Mono.zip(responseMonoOne, responseMonoTwo)
-                .zipWhen(data -> serviceThree.methodThree(data.getT1()))
-                .flatMap(response -> {
-                    LOGGER.info("==start==> response={}", response.toList());
-                    response.getT1().getT1();//response from mono1
-                    response.getT1().getT2();//response from mono 2
-                    response.getT2();//response from mono 3
-                    LOGGER.info("==end==> response={}", response.toList());
-
-                    //тут можно достать данные
-                    Tuple2<CustomObject, String> t1 = response.getT1(); //это пара полученная в Mono.zip
-                    CustomObject t11 = t1.getT1(); //первый элемент из пары
-                    String t21 = t1.getT2(); //второй элемент из пары
-
-                    String t2 = response.getT2();
-
-                    ResponseCustomObject res = new ResponseCustomObject(t11, t21, t2);
-
-                    return Mono.just(res);
-                });
-        Object block = result.log().block();
+        //блокирующий methodOne - на виртуальном потоке, если JVM их поддерживает
+        Scheduler blocking = BlockingSchedulers.create(new BlockingSchedulerProperties(), "blocking");
+
+        //ветки "one" и "two" независимы и выполняются параллельно, "three" ждёт результат "one"
+        ScatterGather graph = ScatterGather.of(
+                Branch.of("one", results -> serviceOne.methodOne())
+                        .subscribeOn(blocking)
+                        .timeout(Duration.ofSeconds(5)),
+                Branch.of("two", results -> serviceTwo.methodTwo())
+                        .timeout(Duration.ofSeconds(1))
+                        .fallbackValue("n/a"),
+                Branch.of("three", results -> serviceThree.methodThree(results.get("one", CustomObject.class)))
+                        .dependsOn("one"));
+
+        long start = System.currentTimeMillis();
+        ResponseCustomObject block = graph.execute(results -> {
+                    LOGGER.info("==results==> {}", results);
+                    return new ResponseCustomObject(
+                            results.get("one", CustomObject.class),
+                            results.get("two", String.class),
+                            results.get("three", String.class));
+                })
+                .log()
+                .block();
+        LOGGER.info("==end==> took {} ms", System.currentTimeMillis() - start);
+        blocking.dispose();
         System.out.println(block);
         System.out.println(block.getClass());
 
@@ -0,0 +1,91 @@
+package com.javatechie.webflux.zip;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Декларативный scatter-gather: граф именованных веток с зависимостями.
+ * <p>
+ * Все ветки подписываются одновременно; ветка ждёт только свои зависимости, поэтому независимые
+ * вызовы идут параллельно и общее время равно самому длинному пути в графе, а не сумме вызовов.
+ * Каждая ветка выполняется ровно один раз за вызов {@link #execute()}, даже если от неё зависят
+ * несколько других. Ошибка ветки без fallback отменяет остальные ветки и завершает результат ошибкой.
+ */
+public final class ScatterGather {
+
+    private final Map<String, Branch<?>> branches = new LinkedHashMap<>();
+
+    private ScatterGather(List<Branch<?>> branches) {
+        for (Branch<?> branch : branches) {
+            if (this.branches.put(branch.getName(), branch) != null) {
+                throw new IllegalArgumentException("Duplicate branch: " + branch.getName());
+            }
+        }
+        for (Branch<?> branch : branches) {
+            for (String dependency : branch.getDependsOn()) {
+                if (!this.branches.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Branch " + branch.getName() + " depends on unknown branch " + dependency);
+                }
+            }
+        }
+        checkAcyclic();
+    }
+
+    public static ScatterGather of(Branch<?>... branches) {
+        return new ScatterGather(Arrays.asList(branches));
+    }
+
+    public Mono<BranchResults> execute() {
+        return Mono.defer(() -> {
+            BranchResults results = new BranchResults();
+            Map<String, Sinks.Empty<Void>> completed = new HashMap<>();
+            branches.keySet().forEach(name -> completed.put(name, Sinks.empty()));
+
+            List<Mono<Void>> runners = new ArrayList<>(branches.size());
+            for (Branch<?> branch : branches.values()) {
+                List<Mono<Void>> dependencies = new ArrayList<>();
+                branch.getDependsOn().forEach(name -> dependencies.add(completed.get(name).asMono()));
+                Sinks.Empty<Void> done = completed.get(branch.getName());
+                runners.add(Mono.when(dependencies)
+                        .then(Mono.defer(() -> branch.invoke(results)))
+                        .doOnNext(value -> results.put(branch.getName(), value))
+                        .then()
+                        .doOnSuccess(ignored -> done.tryEmitEmpty()));
+            }
+            return Mono.when(runners).thenReturn(results);
+        });
+    }
+
+    public <R> Mono<R> execute(Function<BranchResults, R> assembler) {
+        return execute().map(assembler);
+    }
+
+    private void checkAcyclic() {
+        Set<String> visited = new HashSet<>();
+        for (String name : branches.keySet()) {
+            visit(name, visited, new HashSet<>());
+        }
+    }
+
+    private void visit(String name, Set<String> visited, Set<String> path) {
+        if (!path.add(name)) {
+            throw new IllegalArgumentException("Cycle in branch graph at " + name);
+        }
+        if (visited.add(name)) {
+            for (String dependency : branches.get(name).getDependsOn()) {
+                visit(dependency, visited, path);
+            }
+        }
+        path.remove(name);
+    }
+}
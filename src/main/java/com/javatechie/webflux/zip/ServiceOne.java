@@ -3,13 +3,14 @@ package com.javatechie.webflux.zip;
 import reactor.core.publisher.Mono;
 
 public class ServiceOne {
+    /**
+     * Долгий блокирующий вызов. Задержка выполняется только при подписке, а не при сборке цепочки,
+     * поэтому вызов можно запустить параллельно с другими.
+     */
     public Mono<CustomObject> methodOne() {
-        try {
+        return Mono.fromCallable(() -> {
             Thread.sleep(3000L);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        CustomObject co = new CustomObject("Alex", "Rich");
-        return Mono.just(co);
+            return new CustomObject("Alex", "Rich");
+        });
     }
 }
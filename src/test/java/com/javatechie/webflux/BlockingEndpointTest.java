@@ -0,0 +1,82 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Блокирующий GET /customers выполняется на отдельном планировщике, поэтому пока 100 таких запросов
+ * "висят" в DAO, event loop Netty свободен и отвечает на другие запросы быстрее, чем длится блокирующий вызов.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.dao.simulated-latency-ms=" + BlockingEndpointTest.LATENCY_MS,
+        "customer.blocking.max-threads=100",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+public class BlockingEndpointTest {
+
+    static final int LATENCY_MS = 2000;
+
+    private static final int CONCURRENT_CALLS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void eventLoopStaysFreeWhileBlockingCallsAreInFlight() throws Exception {
+        ConnectionProvider provider = ConnectionProvider.builder("blocking-test")
+                .maxConnections(CONCURRENT_CALLS + 10)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+        //первый запрос платит за соединение и инициализацию кодеков и обработчиков, в замер он не входит
+        probe(client);
+
+        CompletableFuture<List<List<Customer>>> inFlight = Flux.range(0, CONCURRENT_CALLS)
+                .flatMap(i -> client.get().uri("/customers")
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<List<Customer>>() {
+                        }), CONCURRENT_CALLS)
+                .collectList()
+                .toFuture();
+        Thread.sleep(300);
+
+        long start = System.nanoTime();
+        probe(client);
+        long probeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertFalse(inFlight.isDone(), "blocking calls should still be in flight");
+        assertTrue(probeMillis < LATENCY_MS / 2, "event loop was blocked for " + probeMillis + " ms");
+
+        List<List<Customer>> responses = inFlight.get(30, TimeUnit.SECONDS);
+        assertEquals(CONCURRENT_CALLS, responses.size());
+        responses.forEach(customers -> assertEquals(10, customers.size()));
+    }
+
+    private static void probe(WebClient client) {
+        Customer customer = client.get().uri("/router/customer/1")
+                .retrieve()
+                .bodyToMono(Customer.class)
+                .block(Duration.ofSeconds(5));
+        assertEquals(1, customer.getId());
+    }
+}
@@ -0,0 +1,104 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.config.BlockingSchedulerProperties;
+import com.javatechie.webflux.config.BlockingSchedulers;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingSchedulersTest {
+
+    /**
+     * VIRTUAL на JVM без виртуальных потоков не ломает запуск, а даёт ограниченный пул.
+     */
+    @Test
+    public void runsBlockingCallsConcurrently() {
+        BlockingSchedulerProperties properties = new BlockingSchedulerProperties();
+        properties.setMaxThreads(500);
+        Scheduler scheduler = BlockingSchedulers.create(properties, "blocking-test");
+        try {
+            long start = System.nanoTime();
+            List<String> threads = Flux.range(0, 500)
+                    .flatMap(i -> Mono.fromCallable(() -> {
+                        Thread.sleep(200);
+                        return Thread.currentThread().getName();
+                    }).subscribeOn(scheduler), 500)
+                    .collectList()
+                    .block(Duration.ofSeconds(30));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(500, threads.size());
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("blocking-test-")), threads.get(0));
+            assertTrue(elapsedMs < 5_000, "500 calls of 200 ms took " + elapsedMs + " ms");
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void virtualThreadsOnlyWhenSupported() {
+        if (BlockingSchedulers.virtualThreadsSupported()) {
+            Scheduler scheduler = BlockingSchedulers.virtualThreads("virtual-test");
+            try {
+                String thread = Mono.fromCallable(() -> Thread.currentThread().toString())
+                        .subscribeOn(scheduler)
+                        .block(Duration.ofSeconds(5));
+                assertTrue(thread.startsWith("VirtualThread"), thread);
+            } finally {
+                scheduler.dispose();
+            }
+        } else {
+            assertThrows(IllegalStateException.class, () -> BlockingSchedulers.virtualThreads("virtual-test"));
+        }
+    }
+
+    /**
+     * Ограничение для виртуальных потоков: сверх предела задачи ждут, сверх очереди - отклоняются.
+     * Проверяется на пуле "поток на задачу", который есть в любой JVM.
+     */
+    @Test
+    public void limitBoundsConcurrencyAndRejectsOverflow() throws Exception {
+        ExecutorService executor = BlockingSchedulers.limit(Executors.newCachedThreadPool(), 2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                tasks.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    release.await();
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> null));
+
+            Thread.sleep(200);
+            assertEquals(2, running.get());
+            release.countDown();
+            for (Future<?> task : tasks) {
+                task.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
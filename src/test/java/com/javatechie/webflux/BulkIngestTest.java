@@ -0,0 +1,56 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dto.BulkIngestSummary;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * POST /router/customer/bulk: клиенты из NDJSON сохраняются пачками, неразобранные строки
+ * пропускаются и считаются в сводке.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.bulk.batch-size=2",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+@AutoConfigureWebTestClient
+public class BulkIngestTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    public void savesValidLinesAndCountsRejected() {
+        String body = "{\"id\":9001,\"name\":\"bulk1\"}\n"
+                + "not json\n"
+                + "{\"id\":9002,\"name\":\"bulk2\"}\n"
+                + "\n"
+                + "{\"id\":9003,\"name\":\"bulk3\"}\n"
+                + "{\"id\":\n";
+
+        BulkIngestSummary summary = client.post().uri("/router/customer/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkIngestSummary.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(3, summary.getReceived());
+        assertEquals(2, summary.getRejected());
+        assertEquals(2, summary.getBatches());
+
+        client.get().uri("/router/customer/9002")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Customer.class).isEqualTo(new Customer(9002, "bulk2"));
+    }
+}
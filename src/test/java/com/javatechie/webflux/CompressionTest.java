@@ -0,0 +1,67 @@
+package com.javatechie.webflux;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Сжатие ответов по server.compression.min-response-size (2KB): короткие ответы идут как есть,
+ * длинные - в gzip.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.store.seed-size=500",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+public class CompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    private WebTestClient client;
+
+    /**
+     * Сжимает только Netty, поэтому клиент ходит на настоящий порт. Коннектор по умолчанию
+     * сам распаковывает gzip и убирает Content-Encoding, здесь - HttpClient без распаковки.
+     */
+    @BeforeEach
+    public void bindToServer() {
+        client = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+    }
+
+    @Test
+    public void smallResponseIsNotCompressed() {
+        client.get().uri("/router/customer/1")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    @Test
+    public void largeResponseIsGzipped() {
+        client.get().uri("/router/customers?limit=200")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    /**
+     * Без Accept-Encoding длинный ответ тоже идёт как есть.
+     */
+    @Test
+    public void largeResponseIsNotCompressedWithoutAcceptEncoding() {
+        client.get().uri("/router/customers?limit=200")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+    }
+}
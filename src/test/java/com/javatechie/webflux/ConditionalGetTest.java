@@ -0,0 +1,59 @@
+package com.javatechie.webflux;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * GET /router/customer/{id} с If-None-Match. Кэш ответов выключен, так что каждый ответ кодируется
+ * заново: валидатор при этом не должен меняться, пока не изменился клиент.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.cache.enabled=false",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+@AutoConfigureWebTestClient
+public class ConditionalGetTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    public void eTagStaysUntilCustomerChanges() {
+        String eTag = eTag();
+        assertEquals(eTag, eTag());
+
+        client.get().uri("/router/customer/2")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().doesNotExist(HttpHeaders.LAST_MODIFIED);
+
+        client.post().uri("/router/customer/save")
+                .bodyValue("{\"id\":2,\"name\":\"renamed\"}")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri("/router/customer/2")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private String eTag() {
+        return client.get().uri("/router/customer/2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.LAST_MODIFIED)
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+    }
+}
@@ -0,0 +1,135 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import com.javatechie.webflux.dto.CustomerChange;
+import com.javatechie.webflux.service.CustomerChangeFeed;
+import com.javatechie.webflux.service.SlowConsumerGuard;
+import com.javatechie.webflux.service.SlowConsumerPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CustomerChangeFeedTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CustomerStore store = new CustomerStore();
+
+    @Test
+    public void publishesSavesInOrder() {
+        CustomerChangeFeed feed = feed(16);
+        List<CustomerChange> received = new ArrayList<>();
+        Disposable subscription = feed.subscribe("test", -1).subscribe(received::add);
+
+        store.put(new Customer(1, "customer1"));
+        store.put(new Customer(2, "customer2"));
+        store.put(new Customer(1, "renamed"));
+        subscription.dispose();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), sequences(received));
+        assertEquals(CustomerChange.Type.UPSERT, received.get(2).getType());
+        assertEquals(new Customer(1, "renamed"), received.get(2).getCustomer());
+    }
+
+    /**
+     * Шарды публикуют параллельно, а номера всё равно идут подряд, без пропусков и повторов.
+     */
+    @Test
+    public void concurrentSavesGetConsecutiveSequences() throws Exception {
+        CustomerStore sharded = new CustomerStore(4);
+        CustomerChangeFeed feed = feed(sharded, 16);
+        List<CustomerChange> received = Collections.synchronizedList(new ArrayList<>());
+        Disposable subscription = feed.subscribe("test", -1).subscribe(received::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    int id = i * 4 + offset;
+                    sharded.put(new Customer(id, "customer" + id));
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        subscription.dispose();
+
+        assertEquals(LongStream.rangeClosed(1, 20_000).boxed().collect(Collectors.toList()), sequences(received));
+        assertEquals(20_000, received.stream().map(change -> change.getCustomer().getId())
+                .collect(Collectors.toCollection(HashSet::new)).size());
+        assertEquals(20_000, feed.sequence());
+    }
+
+    /**
+     * Переподключившийся подписчик получает пропущенное из буфера, а затем новые изменения.
+     */
+    @Test
+    public void resumesAfterLastSeenSequence() {
+        CustomerChangeFeed feed = feed(16);
+        for (int i = 1; i <= 5; i++) {
+            store.put(new Customer(i, "customer" + i));
+        }
+        List<CustomerChange> received = new ArrayList<>();
+        Disposable subscription = feed.subscribe("test", 2).subscribe(received::add);
+        store.put(new Customer(6, "customer6"));
+        subscription.dispose();
+
+        assertEquals(Arrays.asList(3L, 4L, 5L, 6L), sequences(received));
+    }
+
+    /**
+     * Если пропущенного уже нет в буфере (или номер из другого запуска), сначала приходит RESET.
+     */
+    @Test
+    public void resetsWhenHistoryIsGone() {
+        CustomerChangeFeed feed = feed(4);
+        for (int i = 1; i <= 10; i++) {
+            store.put(new Customer(i, "customer" + i));
+        }
+        for (long lastSeen : new long[]{1, 100}) {
+            List<CustomerChange> received = new ArrayList<>();
+            Disposable subscription = feed.subscribe("test", lastSeen).subscribe(received::add);
+            subscription.dispose();
+
+            assertEquals(1, received.size());
+            assertEquals(CustomerChange.Type.RESET, received.get(0).getType());
+            assertEquals(10, received.get(0).getSequence());
+            assertNull(received.get(0).getCustomer());
+        }
+    }
+
+    private CustomerChangeFeed feed(int buffer) {
+        return feed(store, buffer);
+    }
+
+    private CustomerChangeFeed feed(CustomerStore store, int buffer) {
+        CustomerChangeFeed feed = new CustomerChangeFeed(buffer, route -> new SlowConsumerGuard<>(route,
+                SlowConsumerPolicy.BUFFER_THEN_DISCONNECT, 256, Long.MAX_VALUE, change -> 64,
+                registry.counter("dropped"), registry.counter("disconnected")));
+        store.addListener(feed);
+        return feed;
+    }
+
+    private static List<Long> sequences(List<CustomerChange> changes) {
+        return changes.stream().map(CustomerChange::getSequence).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,237 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.config.CustomerLogProperties;
+import com.javatechie.webflux.config.CustomerSnapshotProperties;
+import com.javatechie.webflux.dao.CustomerLog;
+import com.javatechie.webflux.dao.CustomerSnapshots;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerLogTest {
+
+    private Path dir;
+
+    @BeforeEach
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("customer-log");
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+
+    /**
+     * Сохранения из параллельных запросов фиксируются на диске и переживают перезапуск.
+     */
+    @Test
+    public void savesAreReplayedAfterRestart() throws Exception {
+        CustomerStore store = new CustomerStore();
+        CustomerLog log = open(store);
+
+        Flux.range(1, 1000)
+                .flatMap(i -> log.append(Collections.singletonList(new Customer(i, "customer" + i))), 64)
+                .blockLast();
+        log.append(Arrays.asList(new Customer(7, "renamed"), new Customer(2000, null))).block();
+        assertEquals("renamed", store.get(7).getName());
+        log.close();
+
+        CustomerStore restored = new CustomerStore();
+        CustomerLog reopened = open(restored);
+
+        assertEquals(1001, restored.size());
+        assertEquals("customer500", restored.get(500).getName());
+        assertEquals("renamed", restored.get(7).getName());
+        assertNull(restored.get(2000).getName());
+        reopened.close();
+    }
+
+    /**
+     * Оборванная последняя запись отбрасывается, а журнал остаётся пригодным для дозаписи.
+     */
+    @Test
+    public void corruptedTailIsTruncated() throws Exception {
+        CustomerStore store = new CustomerStore();
+        CustomerLog log = open(store);
+        log.append(Collections.singletonList(new Customer(1, "customer1"))).block();
+        log.close();
+
+        Files.write(dir.resolve("customers.log"), new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        CustomerStore restored = new CustomerStore();
+        CustomerLog reopened = open(restored);
+        reopened.append(Collections.singletonList(new Customer(2, "customer2"))).block();
+        reopened.close();
+
+        CustomerStore again = new CustomerStore();
+        open(again).close();
+        assertEquals(2, again.size());
+        assertEquals("customer2", again.get(2).getName());
+    }
+
+    /**
+     * После компактации файл журнала подменён, а дозапись идёт уже в новый файл и переживает перезапуск.
+     */
+    @Test
+    public void compactionKeepsLogAppendable() throws Exception {
+        CustomerLogProperties properties = logProperties();
+        properties.setCompactionMinRecords(50);
+        properties.setCompactionRatio(2.0);
+        CustomerStore store = new CustomerStore();
+        CustomerLog log = open(store, properties, snapshots(false));
+        for (int i = 0; i < 200; i++) {
+            log.append(Collections.singletonList(new Customer(i % 5, "customer" + i))).block();
+        }
+        Path file = dir.resolve("customers.log");
+        long uncompacted = Files.size(file);
+        for (int i = 0; i < 50 && Files.size(file) >= uncompacted; i++) {
+            Thread.sleep(100);
+            log.append(Collections.singletonList(new Customer(6, "tick" + i))).block();
+        }
+        assertTrue(Files.size(file) < uncompacted, "log was not compacted");
+        log.append(Collections.singletonList(new Customer(7, "after"))).block();
+        log.close();
+
+        CustomerStore restored = new CustomerStore();
+        open(restored).close();
+        assertEquals("customer199", restored.get(4).getName());
+        assertEquals("after", restored.get(7).getName());
+    }
+
+    /**
+     * Каждая запись, начатая до или во время close(), завершается - успешно или ошибкой, но не висит.
+     */
+    @Test
+    public void closeCompletesEveryWrite() throws Exception {
+        CustomerLog log = open(new CustomerStore());
+        List<CompletableFuture<Void>> writes = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    int id = i * 4 + offset;
+                    writes.add(log.append(Collections.singletonList(new Customer(id, "customer" + id))).toFuture());
+                }
+            });
+        }
+        Thread.sleep(20);
+        log.close();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (CompletableFuture<Void> write : writes) {
+            try {
+                write.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertEquals("Customer log is closed", e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * После снимка журнал обрезается до маркера; при перезапуске хранилище поднимается из снимка,
+     * а хвост журнала проигрывается поверх него.
+     */
+    @Test
+    public void restartsFromSnapshotAndLogTail() throws Exception {
+        CustomerStore store = new CustomerStore();
+        CustomerLog log = open(store, snapshots(true));
+        for (int i = 1; i <= 1000; i++) {
+            log.append(Collections.singletonList(new Customer(i, "customer" + i))).block();
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (snapshotFiles() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        log.append(Arrays.asList(new Customer(7, "renamed"), new Customer(2000, null))).block();
+        log.close();
+        assertTrue(snapshotFiles() > 0);
+        assertTrue(Files.size(dir.resolve("customers.log")) < 1000 * 20);
+
+        CustomerSnapshots snapshots = snapshots(true);
+        CustomerStore restored = new CustomerStore();
+        ReflectionTestUtils.setField(restored, "seedSize", 0);
+        ReflectionTestUtils.setField(restored, "snapshots", snapshots);
+        restored.seed();
+        assertTrue(restored.snapshotSequence() > 0);
+        CustomerLog reopened = open(restored, snapshots);
+        reopened.replayed().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1001, restored.size());
+        assertEquals("customer500", restored.get(500).getName());
+        assertEquals("renamed", restored.get(7).getName());
+        assertNull(restored.get(2000).getName());
+        reopened.close();
+    }
+
+    private CustomerLog open(CustomerStore store) throws IOException {
+        return open(store, snapshots(false));
+    }
+
+    private CustomerLog open(CustomerStore store, CustomerSnapshots snapshots) throws IOException {
+        return open(store, logProperties(), snapshots);
+    }
+
+    private CustomerLog open(CustomerStore store, CustomerLogProperties properties, CustomerSnapshots snapshots)
+            throws IOException {
+        CustomerLog log = new CustomerLog();
+        ReflectionTestUtils.setField(log, "properties", properties);
+        ReflectionTestUtils.setField(log, "store", store);
+        ReflectionTestUtils.setField(log, "snapshots", snapshots);
+        log.open();
+        return log;
+    }
+
+    private CustomerLogProperties logProperties() {
+        CustomerLogProperties properties = new CustomerLogProperties();
+        properties.setPath(dir.resolve("customers.log").toString());
+        return properties;
+    }
+
+    private CustomerSnapshots snapshots(boolean enabled) {
+        CustomerSnapshotProperties properties = new CustomerSnapshotProperties();
+        properties.setEnabled(enabled);
+        properties.setDir(dir.resolve("snapshots").toString());
+        properties.setMinRecords(100);
+        CustomerSnapshots snapshots = new CustomerSnapshots();
+        ReflectionTestUtils.setField(snapshots, "properties", properties);
+        ReflectionTestUtils.setField(snapshots, "logProperties", logProperties());
+        return snapshots;
+    }
+
+    private long snapshotFiles() throws IOException {
+        Path snapshotDir = dir.resolve("snapshots");
+        if (!Files.isDirectory(snapshotDir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            return files.filter(file -> file.toString().endsWith(".snapshot")).count();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dao.CustomerNameIndex;
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CustomerNameIndexTest {
+
+    private CustomerStore store;
+    private CustomerNameIndex index;
+
+    @BeforeEach
+    public void createIndex() {
+        store = new CustomerStore();
+        store.put(new Customer(1, "Alice"));
+        store.put(new Customer(2, "Alina"));
+        store.put(new Customer(3, "Malice"));
+        index = new CustomerNameIndex();
+        ReflectionTestUtils.setField(index, "store", store);
+        index.init();
+    }
+
+    @Test
+    public void findsByPrefixAndSubstring() {
+        assertEquals(Arrays.asList(1, 2), ids(index.startingWith("ali")));
+        assertEquals(Arrays.asList(1, 3), ids(index.containingNotStartingWith("LIC")));
+        assertEquals(Arrays.asList(), ids(index.containingNotStartingWith("li")));
+    }
+
+    /**
+     * Переименование и новые клиенты после построения индекса видны сразу, старое имя больше не находится.
+     */
+    @Test
+    public void followsSaves() {
+        store.put(new Customer(1, "Bob"));
+        store.put(new Customer(4, "Jalisa"));
+
+        assertEquals(Arrays.asList(2), ids(index.startingWith("ali")));
+        assertEquals(Arrays.asList(1), ids(index.startingWith("b")));
+        assertEquals(Arrays.asList(3), ids(index.containingNotStartingWith("alic")));
+        assertEquals(Arrays.asList(4), ids(index.containingNotStartingWith("alis")));
+
+        store.put(new Customer(1, "Alice"));
+        assertEquals(Arrays.asList(1, 3), ids(index.containingNotStartingWith("lice")));
+    }
+
+    /**
+     * Старая пара (имя, id) остаётся в индексе до слияния, но по префиксу клиент находится один раз.
+     */
+    @Test
+    public void renameKeepingPrefixIsFoundOnce() {
+        store.put(new Customer(1, "Alicia"));
+
+        assertEquals(Arrays.asList(1, 2), ids(index.startingWith("ali")));
+        assertEquals(Arrays.asList(1), ids(index.startingWith("alici")));
+        assertEquals(Arrays.asList(), ids(index.startingWith("alice")));
+
+        store.put(new Customer(1, "Alice"));
+        assertEquals(Arrays.asList(1, 2), ids(index.startingWith("ali")));
+    }
+
+    private static List<Integer> ids(Iterable<Customer> customers) {
+        List<Integer> ids = new ArrayList<>();
+        customers.forEach(customer -> ids.add(customer.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,146 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dao.CustomerStore;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerStoreTest {
+
+    /**
+     * Обход по возрастанию id сливает шарды так же, как если бы индекс был один.
+     */
+    @Test
+    public void mergesShardsInIdOrder() {
+        CustomerStore store = new CustomerStore(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        while (expected.size() < 20_000) {
+            int id = random.nextInt();
+            if (expected.add(id)) {
+                store.put(new Customer(id, "customer" + id));
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected), ids(store.ordered(Long.MIN_VALUE)));
+        for (int i = 0; i < 20; i++) {
+            int after = random.nextInt();
+            assertEquals(new ArrayList<>(expected.tailSet(after, false)), ids(store.ordered(after)));
+        }
+        assertFalse(store.ordered(Integer.MAX_VALUE).iterator().hasNext());
+        assertEquals(expected.size(), store.size());
+    }
+
+    /**
+     * Параллельные сохранения в разные шарды не теряются, а слушатель получает каждое ровно один раз.
+     */
+    @Test
+    public void concurrentSavesAreAllVisible() throws Exception {
+        CustomerStore store = new CustomerStore(4);
+        AtomicInteger notified = new AtomicInteger();
+        AtomicInteger updates = new AtomicInteger();
+        store.addListener((previous, current) -> {
+            notified.incrementAndGet();
+            if (previous != null) {
+                updates.incrementAndGet();
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    int id = i * 4 + offset;
+                    store.put(new Customer(id, "customer" + id));
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(40_000, store.size());
+        assertEquals(40_000, notified.get());
+        assertEquals(0, updates.get());
+        assertEquals(40_000, ids(store.ordered(Long.MIN_VALUE)).size());
+        assertEquals("customer12345", store.get(12345).getName());
+    }
+
+    /**
+     * Слушатель вызывается под блокировкой шарда: пока он занят изменением одного клиента, сохранения
+     * в другие шарды проходят, а в тот же шард ждут - так изменения одного id не обгоняют друг друга.
+     */
+    @Test
+    public void listenerBlocksOnlyItsShard() throws Exception {
+        CustomerStore store = new CustomerStore(4);
+        int sameShard = otherIdInShard(store, 1, true);
+        int otherShard = otherIdInShard(store, 1, false);
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        List<Integer> notified = new CopyOnWriteArrayList<>();
+        store.addListener((previous, current) -> {
+            if (current.getId() == 1) {
+                listenerEntered.countDown();
+                try {
+                    releaseListener.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            notified.add(current.getId());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> slowWriter = executor.submit(() -> store.put(new Customer(1, "customer1")));
+        assertTrue(listenerEntered.await(5, TimeUnit.SECONDS));
+
+        store.put(new Customer(otherShard, "other"));
+        assertEquals(List.of(otherShard), notified);
+        Future<?> sameShardWriter = executor.submit(() -> store.put(new Customer(sameShard, "same")));
+        Thread.sleep(200);
+        assertFalse(sameShardWriter.isDone());
+
+        releaseListener.countDown();
+        slowWriter.get(5, TimeUnit.SECONDS);
+        sameShardWriter.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(List.of(otherShard, 1, sameShard), notified);
+    }
+
+    private static int otherIdInShard(CustomerStore store, int id, boolean same) {
+        int shard = ReflectionTestUtils.invokeMethod(store, "shardOf", id);
+        for (int candidate = id + 1; ; candidate++) {
+            int candidateShard = ReflectionTestUtils.invokeMethod(store, "shardOf", candidate);
+            if ((candidateShard == shard) == same) {
+                return candidate;
+            }
+        }
+    }
+
+    private static List<Integer> ids(Iterable<Customer> customers) {
+        List<Integer> ids = new ArrayList<>();
+        for (Customer customer : customers) {
+            ids.add(customer.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,69 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.config.FunctionalBeans;
+import com.javatechie.webflux.config.StartupTrainingRun;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FunctionalBeansTest {
+
+    /**
+     * Функциональный режим регистрирует те же бины, что находит сканирование classpath.
+     */
+    @Test
+    public void registersEveryScannedBean() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(true);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(ConfigurationProperties.class));
+        Set<String> scanned = new HashSet<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents("com.javatechie.webflux")) {
+            scanned.add(candidate.getBeanClassName());
+        }
+        scanned.remove(SpringbootWebfluxDemoApplication.class.getName());
+        scanned.remove(StartupTrainingRun.class.getName());
+
+        Set<String> registered = new HashSet<>();
+        FunctionalBeans.PROPERTIES.forEach(type -> registered.add(type.getName()));
+        FunctionalBeans.COMPONENTS.forEach(type -> registered.add(type.getName()));
+
+        assertEquals(scanned, registered);
+    }
+
+    /**
+     * Приложение в функциональном режиме поднимается целиком (свойства привязаны, бины связаны)
+     * и отвечает на запрос.
+     */
+    @Test
+    public void startsAndServesInFunctionalMode() {
+        String[] args = {
+                "--customer.startup.functional-beans=true",
+                "--server.port=0",
+                "--customer.log.enabled=false",
+                "--customer.snapshot.enabled=false",
+                "--customer.dao.simulated-latency-ms=0"
+        };
+        try (ConfigurableApplicationContext context = SpringbootWebfluxDemoApplication.application(args).run(args)) {
+            assertTrue(context.getBeansOfType(SpringbootWebfluxDemoApplication.class).isEmpty(),
+                    "application started with classpath scanning");
+            WebTestClient client = WebTestClient.bindToServer()
+                    .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                    .build();
+
+            client.get().uri("/router/customer/1")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Customer.class).isEqualTo(new Customer(1, "customer1"));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.exception.ClientException;
+import com.javatechie.webflux.handler.IdRanges;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdRangesTest {
+
+    @Test
+    public void parsesListsAndRangesInRequestOrder() {
+        assertArrayEquals(new int[]{7, 1, 2, 3, 7, 10},
+                IdRanges.parse(Arrays.asList("7,1-3", " 7 ,,10"), 100));
+    }
+
+    @Test
+    public void rejectsInvalidInput() {
+        assertThrows(ClientException.class, () -> IdRanges.parse(Collections.singletonList("1,x"), 100));
+        assertThrows(ClientException.class, () -> IdRanges.parse(Collections.singletonList("5-3"), 100));
+        assertThrows(ClientException.class, () -> IdRanges.parse(Collections.singletonList("1-2000000000"), 100));
+    }
+
+    @Test
+    public void formatsConsecutiveIdsAsRanges() {
+        assertEquals("1-3,5,8-9", IdRanges.format(new int[]{1, 2, 3, 5, 8, 9}, 100));
+        assertEquals("", IdRanges.format(new int[0], 100));
+    }
+
+    /**
+     * Обрезанная запись укладывается в предел и помечена ",...".
+     */
+    @Test
+    public void truncatesAtRangeBoundary() {
+        String formatted = IdRanges.format(new int[]{100, 200, 300, 400, 500}, 12);
+        assertEquals("100,200,...", formatted);
+        assertEquals("...", IdRanges.format(new int[]{123456, 7}, 5));
+    }
+}
@@ -0,0 +1,61 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dao.IntCustomerMap;
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IntCustomerMapTest {
+
+    @Test
+    public void putAndGet() {
+        IntCustomerMap map = new IntCustomerMap();
+        Customer customer = new Customer(7, "customer7");
+
+        assertNull(map.put(customer));
+        assertSame(customer, map.get(7));
+        assertNull(map.get(8));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void putReplacesExistingId() {
+        IntCustomerMap map = new IntCustomerMap();
+        Customer first = new Customer(1, "first");
+        Customer second = new Customer(1, "second");
+
+        map.put(first);
+
+        assertSame(first, map.put(second));
+        assertSame(second, map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Таблица несколько раз расширяется, все ключи (в том числе 0 и отрицательные) остаются доступны.
+     */
+    @Test
+    public void growsAndKeepsAllEntries() {
+        IntCustomerMap map = new IntCustomerMap();
+        for (int i = -1000; i < 100_000; i++) {
+            map.put(new Customer(i, "customer" + i));
+        }
+
+        assertEquals(101_000, map.size());
+        for (int i = -1000; i < 100_000; i++) {
+            assertEquals(i, map.get(i).getId());
+        }
+
+        Set<Integer> scanned = new HashSet<>();
+        for (Customer customer : map) {
+            scanned.add(customer.getId());
+        }
+        assertEquals(101_000, scanned.size());
+    }
+}
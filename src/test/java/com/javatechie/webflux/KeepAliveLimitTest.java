@@ -0,0 +1,69 @@
+package com.javatechie.webflux;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * customer.netty.max-keep-alive-requests: после заданного числа запросов сервер отвечает
+ * с Connection: close и закрывает соединение.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.netty.max-keep-alive-requests=3",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+public class KeepAliveLimitTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void closesConnectionAfterLimit() throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5_000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            for (int i = 1; i <= 3; i++) {
+                out.write(("GET /router/customer/" + i + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                String headers = readResponse(in);
+                assertTrue(headers.startsWith("http/1.1 200"), headers);
+                assertEquals(i == 3, headers.contains("connection: close"), headers);
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * Читает один ответ с Content-Length и возвращает его заголовки в нижнем регистре.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = in.read();
+            assertFalse(b < 0, "connection closed before the response headers");
+            head.write(b);
+        }
+        String headers = head.toString(StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+        int start = headers.indexOf("content-length:");
+        assertTrue(start >= 0, headers);
+        int length = Integer.parseInt(headers.substring(start + 15, headers.indexOf("\r\n", start)).trim());
+        assertEquals(length, in.readNBytes(length).length);
+        return headers;
+    }
+}
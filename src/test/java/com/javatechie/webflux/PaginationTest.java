@@ -0,0 +1,79 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dto.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /router/customers?limit=&after=: обход всех страниц по курсору из X-Next-Cursor.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.store.seed-size=50",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+@AutoConfigureWebTestClient
+public class PaginationTest {
+
+    private static final int LIMIT = 7;
+
+    @Autowired
+    private WebTestClient client;
+
+    /**
+     * Страницы идут по возрастанию id и вместе покрывают всех клиентов ровно по одному разу;
+     * у последней страницы нет курсора.
+     */
+    @Test
+    public void walksAllPagesByCursor() {
+        List<Integer> ids = new ArrayList<>();
+        String uri = "/router/customers?limit=" + LIMIT;
+        int pages = 0;
+        while (uri != null) {
+            EntityExchangeResult<List<Customer>> page = client.get().uri(uri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(Customer.class)
+                    .returnResult();
+            List<Customer> customers = page.getResponseBody();
+            assertTrue(customers.size() <= LIMIT, uri);
+            customers.forEach(customer -> ids.add(customer.getId()));
+            pages++;
+
+            HttpHeaders headers = page.getResponseHeaders();
+            String cursor = headers.getFirst("X-Next-Cursor");
+            if (cursor == null) {
+                assertNull(headers.getFirst(HttpHeaders.LINK));
+                uri = null;
+            } else {
+                assertEquals(LIMIT, customers.size());
+                uri = "/router/customers?limit=" + LIMIT + "&after=" + cursor;
+                assertEquals("<" + uri + ">; rel=\"next\"", headers.getFirst(HttpHeaders.LINK));
+            }
+        }
+
+        assertEquals(IntStream.rangeClosed(1, 50).boxed().collect(Collectors.toList()), ids);
+        assertEquals(8, pages);
+    }
+
+    @Test
+    public void rejectsForeignCursor() {
+        client.get().uri("/router/customers?limit=5&after=bm90LWEtY3Vyc29y")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,133 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.config.RateLimitProperties;
+import com.javatechie.webflux.ratelimit.RateLimitWebFilter;
+import com.javatechie.webflux.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    /**
+     * Маршрут, у которого задан только клиентский лимит, получает общий лимит из defaults.
+     */
+    @Test
+    public void routeInheritsUnsetFieldsFromDefaults() {
+        properties.getDefaults().setGlobalRate(500.0);
+        properties.getDefaults().setGlobalBurst(1000);
+        RateLimitProperties.Limit bulk = new RateLimitProperties.Limit();
+        bulk.setClientRate(1.0);
+        bulk.setClientBurst(2);
+        properties.getRoutes().put("bulk", bulk);
+
+        RateLimitProperties.Limit limit = properties.limitFor("bulk");
+
+        assertEquals(1.0, limit.getClientRate());
+        assertEquals(2, limit.getClientBurst());
+        assertEquals(500.0, limit.getGlobalRate());
+        assertEquals(1000, limit.getGlobalBurst());
+    }
+
+    /**
+     * Сверх лимита - 429 с Retry-After в целых секундах, обработчик не вызывается.
+     */
+    @Test
+    public void rejectsWith429AndRetryAfter() {
+        route("test", 1.0, 2, 0.0, 1);
+        AtomicInteger handled = new AtomicInteger();
+        HandlerFunction<ServerResponse> handler = rateLimiter.limit("test", request -> {
+            handled.incrementAndGet();
+            return ServerResponse.ok().build();
+        });
+
+        assertEquals(HttpStatus.OK, handle(handler, "10.0.0.1").statusCode());
+        assertEquals(HttpStatus.OK, handle(handler, "10.0.0.1").statusCode());
+        ServerResponse rejected = handle(handler, "10.0.0.1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.statusCode());
+        assertEquals("1", rejected.headers().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(2, handled.get());
+        assertEquals(HttpStatus.OK, handle(handler, "10.0.0.2").statusCode());
+    }
+
+    /**
+     * Клиентская корзина проверяется первой: отказы шумному клиенту не тратят общий лимит маршрута.
+     */
+    @Test
+    public void clientLimitIsCheckedBeforeGlobal() {
+        route("test", 1.0, 2, 0.001, 3);
+        HandlerFunction<ServerResponse> handler = rateLimiter.limit("test", request -> ServerResponse.ok().build());
+
+        for (int i = 0; i < 20; i++) {
+            handle(handler, "10.0.0.1");
+        }
+        assertEquals(HttpStatus.OK, handle(handler, "10.0.0.2").statusCode());
+        ServerResponse rejected = handle(handler, "10.0.0.2");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.statusCode());
+        assertTrue(Long.parseLong(rejected.headers().getFirst(HttpHeaders.RETRY_AFTER)) > 1);
+        assertEquals(18.0, rejectedCount("test", "client"));
+        assertEquals(1.0, rejectedCount("test", "global"));
+    }
+
+    /**
+     * Маршруты контроллера ограничивает WebFilter с тем же ответом.
+     */
+    @Test
+    public void webFilterRejectsControllerRoute() {
+        route("customers", 1.0, 1, 0.0, 1);
+        RateLimitWebFilter filter = new RateLimitWebFilter();
+        ReflectionTestUtils.setField(filter, "rateLimiter", rateLimiter);
+
+        assertNull(exchange(filter).getResponse().getStatusCode());
+        MockServerWebExchange rejected = exchange(filter);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private void route(String route, double clientRate, int clientBurst, double globalRate, int globalBurst) {
+        properties.getRoutes().put(route, new RateLimitProperties.Limit(clientRate, clientBurst, globalRate, globalBurst));
+        ReflectionTestUtils.setField(rateLimiter, "properties", properties);
+        ReflectionTestUtils.setField(rateLimiter, "registry", registry);
+        rateLimiter.init();
+    }
+
+    private static ServerResponse handle(HandlerFunction<ServerResponse> handler, String ip) {
+        return handler.handle(MockServerRequest.builder()
+                        .remoteAddress(new InetSocketAddress(ip, 40000))
+                        .build())
+                .block();
+    }
+
+    private static MockServerWebExchange exchange(RateLimitWebFilter filter) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/customers")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 40000)));
+        filter.filter(exchange, chained -> Mono.empty()).block();
+        return exchange;
+    }
+
+    private double rejectedCount(String route, String scope) {
+        return registry.get("customer.rate-limit.rejected").tag("route", route).tag("scope", scope).counter().count();
+    }
+}
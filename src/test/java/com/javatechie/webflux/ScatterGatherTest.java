@@ -0,0 +1,60 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.zip.Branch;
+import com.javatechie.webflux.zip.BranchResults;
+import com.javatechie.webflux.zip.ScatterGather;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScatterGatherTest {
+
+    /**
+     * Две независимые ветки по секунде и зависимая от обеих: итог около секунды, а не две.
+     */
+    @Test
+    public void independentBranchesRunConcurrently() {
+        AtomicInteger calls = new AtomicInteger();
+        ScatterGather graph = ScatterGather.of(
+                Branch.of("a", r -> Mono.delay(Duration.ofSeconds(1)).doOnNext(i -> calls.incrementAndGet()).thenReturn(1)),
+                Branch.of("b", r -> Mono.delay(Duration.ofSeconds(1)).thenReturn(2)),
+                Branch.of("sum", r -> Mono.just(r.get("a", Integer.class) + r.get("b", Integer.class)))
+                        .dependsOn("a", "b"),
+                Branch.of("twice", r -> Mono.just(r.get("a", Integer.class) * 2))
+                        .dependsOn("a"));
+
+        long start = System.nanoTime();
+        BranchResults results = graph.execute().block();
+        long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        int sum = results.get("sum", Integer.class);
+        int twice = results.get("twice", Integer.class);
+        assertEquals(3, sum);
+        assertEquals(2, twice);
+        assertEquals(1, calls.get());
+        assertTrue(millis < 1800, "took " + millis + " ms");
+    }
+
+    @Test
+    public void timedOutBranchUsesFallback() {
+        ScatterGather graph = ScatterGather.of(
+                Branch.of("slow", r -> Mono.delay(Duration.ofSeconds(5)).thenReturn("value"))
+                        .timeout(Duration.ofMillis(100))
+                        .fallbackValue("fallback"));
+
+        assertEquals("fallback", graph.execute(r -> r.get("slow", String.class)).block());
+    }
+
+    @Test
+    public void rejectsCycles() {
+        assertThrows(IllegalArgumentException.class, () -> ScatterGather.of(
+                Branch.of("a", r -> Mono.just(1)).dependsOn("b"),
+                Branch.of("b", r -> Mono.just(2)).dependsOn("a")));
+    }
+}
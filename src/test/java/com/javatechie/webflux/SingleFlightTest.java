@@ -0,0 +1,61 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.cache.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+
+    @Test
+    public void concurrentCallsShareOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Mono<String>> loader = () -> {
+            loads.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).thenReturn("value");
+        };
+
+        Mono<String> first = singleFlight.execute(1, loader);
+        Mono<String> second = singleFlight.execute(1, loader);
+        assertEquals("value-value", Mono.zip(first, second, (a, b) -> a + "-" + b).block());
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlight());
+
+        assertEquals("value", singleFlight.execute(1, loader).block());
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Отмена одного подписчика не отменяет загрузку для другого; когда отписались все, загрузка отменяется.
+     */
+    @Test
+    public void cancellationOfOneWaiterDoesNotCancelOthers() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Supplier<Mono<String>> loader = () -> Mono.delay(Duration.ofMillis(300))
+                .thenReturn("value")
+                .doOnCancel(() -> cancelled.set(true));
+
+        Disposable impatient = singleFlight.execute(1, loader).subscribe();
+        Mono<String> patient = singleFlight.execute(1, loader);
+        Mono.delay(Duration.ofMillis(50)).subscribe(i -> impatient.dispose());
+        assertEquals("value", patient.block());
+        assertFalse(cancelled.get());
+
+        Disposable only = singleFlight.execute(2, loader).subscribe();
+        only.dispose();
+        assertTrue(cancelled.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+}
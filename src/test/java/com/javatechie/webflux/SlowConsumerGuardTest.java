@@ -0,0 +1,112 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.service.SlowConsumerGuard;
+import com.javatechie.webflux.service.SlowConsumerPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlowConsumerGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Counter dropped = registry.counter("dropped");
+    private final Counter disconnected = registry.counter("disconnected");
+
+    @Test
+    public void bufferThenDisconnectFailsSlowSubscriber() {
+        SlowSubscriber subscriber = run(SlowConsumerPolicy.BUFFER_THEN_DISCONNECT, 3, Long.MAX_VALUE, 1, 5);
+
+        assertEquals(Arrays.asList(1), subscriber.received);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(1.0, disconnected.count());
+    }
+
+    @Test
+    public void dropOldestKeepsNewestEvents() {
+        SlowSubscriber subscriber = run(SlowConsumerPolicy.DROP_OLDEST, 3, Long.MAX_VALUE, 1, 8);
+        subscriber.request(10);
+
+        assertEquals(Arrays.asList(1, 6, 7, 8), subscriber.received);
+        assertNull(subscriber.error);
+        assertEquals(4.0, dropped.count());
+        assertEquals(0.0, disconnected.count());
+    }
+
+    @Test
+    public void latestOnlyKeepsLastEvent() {
+        SlowSubscriber subscriber = run(SlowConsumerPolicy.LATEST_ONLY, 100, Long.MAX_VALUE, 0, 5);
+        subscriber.request(10);
+
+        assertEquals(Arrays.asList(5), subscriber.received);
+        assertEquals(4.0, dropped.count());
+    }
+
+    /**
+     * Лимит по памяти срабатывает раньше лимита по числу событий.
+     */
+    @Test
+    public void byteLimitBoundsBuffer() {
+        SlowSubscriber subscriber = run(SlowConsumerPolicy.DROP_OLDEST, 100, 25, 0, 10);
+        subscriber.request(10);
+
+        assertEquals(Arrays.asList(9, 10), subscriber.received);
+        assertFalse(subscriber.completed);
+    }
+
+    private SlowSubscriber run(SlowConsumerPolicy policy, int maxEvents, long maxBytes, int initialRequest, int events) {
+        SlowConsumerGuard<Integer> guard = new SlowConsumerGuard<>("test", policy, maxEvents, maxBytes,
+                event -> 10, dropped, disconnected);
+        Sinks.Many<Integer> source = Sinks.many().multicast().directBestEffort();
+        SlowSubscriber subscriber = new SlowSubscriber(initialRequest);
+        guard.apply(source.asFlux()).subscribe(subscriber);
+        for (int i = 1; i <= events; i++) {
+            source.tryEmitNext(i);
+        }
+        return subscriber;
+    }
+
+    private static class SlowSubscriber extends BaseSubscriber<Integer> {
+        final List<Integer> received = new ArrayList<>();
+        final int initialRequest;
+        Throwable error;
+        boolean completed;
+
+        SlowSubscriber(int initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(Integer value) {
+            received.add(value);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
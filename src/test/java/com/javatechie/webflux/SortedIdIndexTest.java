@@ -0,0 +1,47 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.dao.SortedIdIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class SortedIdIndexTest {
+
+    /**
+     * Случайные id (с несколькими слияниями delta в основной массив) обходятся по возрастанию
+     * с любого курсора, так же как в TreeSet.
+     */
+    @Test
+    public void iteratesInOrderAfterCursor() {
+        SortedIdIndex index = new SortedIdIndex();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        while (expected.size() < 50_000) {
+            int id = random.nextInt();
+            if (expected.add(id)) {
+                index.add(id);
+            }
+        }
+
+        assertIteration(expected, index.iterator(Long.MIN_VALUE), Integer.MIN_VALUE, true);
+        for (int i = 0; i < 100; i++) {
+            int after = random.nextInt();
+            assertIteration(expected, index.iterator(after), after, false);
+        }
+        int existing = expected.first();
+        assertIteration(expected, index.iterator(existing), existing, false);
+        assertFalse(index.iterator(Integer.MAX_VALUE).hasNext());
+    }
+
+    private static void assertIteration(TreeSet<Integer> expected, PrimitiveIterator.OfInt actual, int after, boolean inclusive) {
+        for (int id : expected.tailSet(after, inclusive)) {
+            assertEquals(id, actual.nextInt());
+        }
+        assertFalse(actual.hasNext());
+    }
+}
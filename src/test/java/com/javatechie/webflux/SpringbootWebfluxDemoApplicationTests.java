@@ -3,7 +3,7 @@ package com.javatechie.webflux;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"customer.log.enabled=false", "customer.snapshot.enabled=false"})
 class SpringbootWebfluxDemoApplicationTests {
 
 	@Test
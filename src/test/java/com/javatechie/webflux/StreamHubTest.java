@@ -0,0 +1,80 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.service.SlowConsumerGuard;
+import com.javatechie.webflux.service.SlowConsumerPolicy;
+import com.javatechie.webflux.service.StreamHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamHubTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Sinks.Many<Integer> events = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    private final StreamHub<Integer> hub = new StreamHub<>("test",
+            () -> events.asFlux()
+                    .doOnSubscribe(s -> started.incrementAndGet())
+                    .doOnCancel(cancelled::incrementAndGet),
+            true, 0,
+            route -> new SlowConsumerGuard<>(route, SlowConsumerPolicy.DROP_OLDEST, 100, Long.MAX_VALUE,
+                    event -> 10, registry.counter("dropped"), registry.counter("disconnected")));
+
+    /**
+     * Два подписчика получают одни и те же события из одного запуска источника.
+     */
+    @Test
+    public void subscribersShareOneUpstream() {
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        Disposable firstSubscription = hub.subscribe("a").subscribe(first::add);
+        Disposable secondSubscription = hub.subscribe("b").subscribe(second::add);
+
+        events.tryEmitNext(1);
+        events.tryEmitNext(2);
+
+        assertEquals(Arrays.asList(1, 2), first);
+        assertEquals(Arrays.asList(1, 2), second);
+        assertEquals(1, started.get());
+        assertEquals(2, hub.subscribers());
+
+        firstSubscription.dispose();
+        secondSubscription.dispose();
+    }
+
+    /**
+     * Источник отменяется только когда уходит последний подписчик, а следующий подписчик
+     * запускает его заново.
+     */
+    @Test
+    public void cancelsUpstreamAfterLastSubscriberLeaves() {
+        Disposable first = hub.subscribe("a").subscribe();
+        Disposable second = hub.subscribe("a").subscribe();
+
+        first.dispose();
+        assertEquals(0, cancelled.get());
+        assertEquals(1, hub.subscribers());
+
+        second.dispose();
+        assertEquals(1, cancelled.get());
+        assertEquals(0, hub.subscribers());
+
+        List<Integer> received = new ArrayList<>();
+        Disposable third = hub.subscribe("a").subscribe(received::add);
+        events.tryEmitNext(3);
+
+        assertEquals(2, started.get());
+        assertEquals(Arrays.asList(3), received);
+        third.dispose();
+    }
+}
@@ -0,0 +1,51 @@
+package com.javatechie.webflux;
+
+import com.javatechie.webflux.ratelimit.StripedTokenBucket;
+import com.javatechie.webflux.ratelimit.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * После простоя проходит burst запросов подряд, дальше - по одному на интервал 1/rate.
+     */
+    @Test
+    public void allowsBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(now));
+        }
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0 && wait <= SECOND / 10, "wait " + wait);
+
+        assertEquals(0, bucket.tryAcquire(now + wait));
+        assertTrue(bucket.tryAcquire(now + wait) > 0);
+
+        assertEquals(0, bucket.tryAcquire(now + 10 * SECOND));
+    }
+
+    /**
+     * Один поток (один event loop) получает весь лимит, а не долю одной полосы.
+     */
+    @Test
+    public void singleThreadReachesStripedRate() {
+        StripedTokenBucket bucket = new StripedTokenBucket(1000, 80, 8);
+        long start = 1_000 * SECOND;
+        int acquired = 0;
+        for (long now = start; now < start + 10 * SECOND; now += SECOND / 10_000) {
+            if (bucket.tryAcquire(now) == 0) {
+                acquired++;
+            }
+        }
+        assertTrue(acquired >= 9_900 && acquired <= 10_080 + 80, "acquired " + acquired);
+    }
+}
@@ -0,0 +1,57 @@
+package com.javatechie.webflux;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * JSON - формат по умолчанию, CBOR отдаётся только по явному Accept.
+ * pre-encoded=false, чтобы список клиентов писали кодеки WebFlux, а не заранее закодированные байты.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.dao.simulated-latency-ms=0",
+        "customer.encoding.pre-encoded=false",
+        "customer.log.enabled=false",
+        "customer.snapshot.enabled=false"
+})
+@AutoConfigureWebTestClient
+public class WireFormatNegotiationTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    public void jsonWithoutAccept() {
+        for (String uri : new String[]{"/customers", "/router/customers?limit=5", "/router/customer/1"}) {
+            client.get().uri(uri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+        }
+    }
+
+    @Test
+    public void jsonForWildcardAccept() {
+        for (String uri : new String[]{"/customers", "/router/customers?limit=5", "/router/customer/1"}) {
+            client.get().uri(uri)
+                    .accept(MediaType.ALL)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+        }
+    }
+
+    @Test
+    public void cborOnlyWhenAsked() {
+        for (String uri : new String[]{"/customers", "/router/customers?limit=5", "/router/customer/1"}) {
+            client.get().uri(uri)
+                    .accept(MediaType.APPLICATION_CBOR)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR);
+        }
+    }
+}